@@ -12,7 +12,13 @@ public class AiEngineApplication {
 		System.out.println("MONGO_URL: " + System.getenv("MONGO_URL"));
 		System.out.println("MONGODB_URI: " + System.getenv("MONGODB_URI"));
 		System.out.println("===========================================");
-		
+
+		// JVM-wide and read once, when the first HttpClient is built, so it is set before any bean
+		// exists; pass -Djdk.httpclient.keepalive.timeout=<seconds> to override
+		if (System.getProperty("jdk.httpclient.keepalive.timeout") == null) {
+			System.setProperty("jdk.httpclient.keepalive.timeout", "300");
+		}
+
 		SpringApplication.run(AiEngineApplication.class, args);
 	}
 
@@ -1,5 +1,12 @@
 package com.keeplynk.ai.agent;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface Agent {
     void execute(AgentContext context);
+
+    // Non-blocking variant; the default runs execute on the calling thread
+    default CompletableFuture<Void> executeAsync(AgentContext context) {
+        return CompletableFuture.runAsync(() -> execute(context), Runnable::run);
+    }
 }
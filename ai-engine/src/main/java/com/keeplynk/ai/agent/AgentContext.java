@@ -1,21 +1,102 @@
 package com.keeplynk.ai.agent;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
-public class AgentContext {
+public class AgentContext implements SkillContext {
 
     private String resourceId;
     private String url;
     private String persona;
-    private Map<String, Object> memory = new HashMap<>();
-    private List<String> reasoning = new ArrayList<>();
+    private String userId; // owner of the memory (tags, categories) the skills use
+    // Skills may run concurrently, so both collections must tolerate parallel writers
+    private Map<String, Object> memory = new ConcurrentHashMap<>();
+    private List<String> reasoning = new CopyOnWriteArrayList<>();
     private Map<String, Boolean> needs; // what AI should do
+    private final Set<String> predicted = ConcurrentHashMap.newKeySet(); // memory keys the LLM did not produce
+    private volatile boolean degraded; // a skill failed or timed out
+    private volatile Listener listener; // set by streaming callers only
+
+    /**
+     * Notified as results are produced, from whichever thread produced them.
+     */
+    public interface Listener {
+
+        void onMemory(String key, Object value);
 
+        void onReasoning(String step);
+    }
+
+    public void listen(Listener listener) {
+        this.listener = listener;
+    }
+
+    @Override
     public void addReasoning(String step) {
         this.reasoning.add(step);
+        reasoningAdded(step);
+    }
+
+    @Override
+    public void putMemory(String key, Object value) {
+        this.memory.put(key, value);
+        memoryPut(key, value);
+    }
+
+    private void reasoningAdded(String step) {
+        Listener current = listener;
+        if (current != null) {
+            current.onReasoning(step);
+        }
+    }
+
+    private void memoryPut(String key, Object value) {
+        Listener current = listener;
+        if (current != null) {
+            current.onMemory(key, value);
+        }
+    }
+
+    @Override
+    public void markPredicted(String key) {
+        this.predicted.add(key);
+    }
+
+    @JsonIgnore
+    public Set<String> getPredicted() {
+        return predicted;
+    }
+
+    @Override
+    public void markDegraded() {
+        this.degraded = true;
+    }
+
+    // Degraded results are returned to the caller but never stored for reuse
+    @JsonIgnore
+    public boolean isDegraded() {
+        return degraded;
+    }
+
+    /**
+     * A view of this context for one skill run, closed by the scheduler
+     * when it stops waiting for the skill.
+     */
+    public SkillView forSkill() {
+        return new SkillView(this);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> cancelOnClose(CompletableFuture<T> call) {
+        return call;
     }
 
     public static AgentContext from(AgentInput input) {
@@ -23,6 +104,7 @@ public class AgentContext {
         context.setResourceId(input.getResourceId());
         context.setUrl(input.getUrl());
         context.setPersona(input.getPersona());
+        context.setUserId(input.getUserId());
         context.setNeeds(input.getNeeds());
         return context;
     }
@@ -32,6 +114,7 @@ public class AgentContext {
         context.setResourceId(input.getResourceId());
         context.setUrl(input.getUrl());
         context.setPersona(input.getPersona());
+        context.setUserId(input.getUserId());
         context.setNeeds(input.getNeeds());
         return context;
     }
@@ -54,17 +137,23 @@ public class AgentContext {
 	public void setPersona(String persona) {
 		this.persona = persona;
 	}
+	public String getUserId() {
+		return userId;
+	}
+	public void setUserId(String userId) {
+		this.userId = userId;
+	}
 	public Map<String, Object> getMemory() {
 		return memory;
 	}
 	public void setMemory(Map<String, Object> memory) {
-		this.memory = memory;
+		this.memory = new ConcurrentHashMap<>(memory);
 	}
 	public List<String> getReasoning() {
 		return reasoning;
 	}
 	public void setReasoning(List<String> reasoning) {
-		this.reasoning = reasoning;
+		this.reasoning = new CopyOnWriteArrayList<>(reasoning);
 	}
 	public Map<String, Boolean> getNeeds() {
 		return needs;
@@ -73,5 +162,119 @@ public class AgentContext {
 		this.needs = needs;
 	}
 
-    
+    /**
+     * Reads go to the owning context; writes reach it only while the view is
+     * open. After {@link #close} a late skill's results are dropped and its
+     * registered provider calls are cancelled, so nothing changes a context
+     * that has already been returned or stored. Listeners are notified
+     * outside the lock, so a slow stream never holds up {@link #close}.
+     */
+    public static final class SkillView implements SkillContext {
+
+        private final AgentContext owner;
+        // Guarded by this
+        private final List<CompletableFuture<?>> calls = new ArrayList<>();
+        private boolean closed;
+
+        private SkillView(AgentContext owner) {
+            this.owner = owner;
+        }
+
+        public void close() {
+            List<CompletableFuture<?>> pending;
+            synchronized (this) {
+                closed = true;
+                pending = List.copyOf(calls);
+                calls.clear();
+            }
+            pending.forEach(call -> call.cancel(true));
+        }
+
+        public synchronized boolean isClosed() {
+            return closed;
+        }
+
+        @Override
+        public <T> CompletableFuture<T> cancelOnClose(CompletableFuture<T> call) {
+            synchronized (this) {
+                if (!closed) {
+                    calls.add(call);
+                    call.whenComplete((ignored, error) -> forget(call));
+                    return call;
+                }
+            }
+            call.cancel(true);
+            return call;
+        }
+
+        private synchronized void forget(CompletableFuture<?> call) {
+            calls.remove(call);
+        }
+
+        @Override
+        public void addReasoning(String step) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                owner.reasoning.add(step);
+            }
+            owner.reasoningAdded(step);
+        }
+
+        @Override
+        public void putMemory(String key, Object value) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                owner.memory.put(key, value);
+            }
+            owner.memoryPut(key, value);
+        }
+
+        @Override
+        public synchronized void markPredicted(String key) {
+            if (!closed) {
+                owner.markPredicted(key);
+            }
+        }
+
+        @Override
+        public synchronized void markDegraded() {
+            if (!closed) {
+                owner.markDegraded();
+            }
+        }
+
+        @Override
+        public String getResourceId() {
+            return owner.getResourceId();
+        }
+
+        @Override
+        public String getUrl() {
+            return owner.getUrl();
+        }
+
+        @Override
+        public String getPersona() {
+            return owner.getPersona();
+        }
+
+        @Override
+        public String getUserId() {
+            return owner.getUserId();
+        }
+
+        @Override
+        public Map<String, Boolean> getNeeds() {
+            return owner.getNeeds();
+        }
+
+        @Override
+        public Map<String, Object> getMemory() {
+            return Collections.unmodifiableMap(owner.getMemory());
+        }
+    }
 }
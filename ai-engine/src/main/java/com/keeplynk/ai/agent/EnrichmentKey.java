@@ -0,0 +1,64 @@
+package com.keeplynk.ai.agent;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Identity of an enrichment result: the same canonical URL, persona and set of
+ * requested fields always produce an interchangeable result. Tags and
+ * categories come from the user's own vocabulary, so results are kept per
+ * user; {@code userId} is empty for requests without one.
+ */
+public record EnrichmentKey(String canonicalUrl, String persona, String needs, String userId) {
+
+    // Cannot occur in a canonical URL
+    private static final char USER_SEPARATOR = '\u001f';
+
+    public static EnrichmentKey of(AgentInput input) {
+        return of(input.getUrl(), input.getPersona(), input.getNeeds(), input.getUserId());
+    }
+
+    public static EnrichmentKey of(AgentContext context) {
+        return of(context.getUrl(), context.getPersona(), context.getNeeds(), context.getUserId());
+    }
+
+    private static EnrichmentKey of(String url, String persona, Map<String, Boolean> needs, String userId) {
+        return new EnrichmentKey(
+            UrlCanonicalizer.canonicalize(url),
+            persona == null ? "" : persona.trim(),
+            describeNeeds(needs),
+            userId == null ? "" : userId.trim()
+        );
+    }
+
+    // Sorted list of requested fields; "*" means no needs, i.e. everything
+    private static String describeNeeds(Map<String, Boolean> needs) {
+        if (needs == null || needs.isEmpty()) {
+            return "*";
+        }
+        return needs.entrySet().stream()
+                .filter(entry -> Boolean.TRUE.equals(entry.getValue()))
+                .map(Map.Entry::getKey)
+                .sorted()
+                .collect(Collectors.joining(","));
+    }
+
+    // Keys without a user keep the format they had before results were kept per user
+    public String asString() {
+        String key = canonicalUrl + '\n' + persona + '\n' + needs;
+        return userId.isEmpty() ? key : userId + USER_SEPARATOR + key;
+    }
+
+    // Inverse of asString
+    public static EnrichmentKey parse(String value) {
+        int user = value.indexOf(USER_SEPARATOR);
+        String userId = user < 0 ? "" : value.substring(0, user);
+        String key = value.substring(user + 1);
+        int first = key.indexOf('\n');
+        int last = key.lastIndexOf('\n');
+        if (first < 0 || first == last) {
+            throw new IllegalArgumentException("Not an enrichment key: " + value);
+        }
+        return new EnrichmentKey(key.substring(0, first), key.substring(first + 1, last), key.substring(last + 1), userId);
+    }
+}
@@ -1,54 +1,123 @@
 package com.keeplynk.ai.agent;
 
-import com.keeplynk.ai.skill.DescriptionSkill;
-import com.keeplynk.ai.skill.Skill;
-import com.keeplynk.ai.skill.TagSkill;
-import com.keeplynk.ai.skill.TitleSkill;
+import com.keeplynk.ai.skill.EnrichmentBatcher;
+import com.keeplynk.ai.skill.FusedEnrichment;
+import com.keeplynk.ai.skill.SkillPlan;
+import com.keeplynk.ai.skill.SkillRegistry;
+import com.keeplynk.ai.skill.SkillScheduler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class ResourceAgent implements Agent {
 
-    private final List<Skill> skills;
+    private static final Logger log = LoggerFactory.getLogger(ResourceAgent.class);
+
+    private final SkillRegistry skillRegistry;
+    private final SkillScheduler skillScheduler;
+    private final FusedEnrichment fusedEnrichment;
+    private final EnrichmentBatcher enrichmentBatcher;
+    private final ExecutorService skillExecutor;
+
+    // sequential | concurrent | fused | batched (fused, several resources per prompt)
+    @Value("${agent.skills.mode:sequential}")
+    private String mode;
 
-    public ResourceAgent(List<Skill> skills) {
-        this.skills = skills;
+    // Upper bound for the whole skill graph, and for the fused or batched call
+    @Value("${agent.skills.timeout-ms:15000}")
+    private long timeoutMs;
+
+    public ResourceAgent(
+        SkillRegistry skillRegistry,
+        SkillScheduler skillScheduler,
+        FusedEnrichment fusedEnrichment,
+        EnrichmentBatcher enrichmentBatcher,
+        @Qualifier("skillExecutor") ExecutorService skillExecutor
+    ) {
+        this.skillRegistry = skillRegistry;
+        this.skillScheduler = skillScheduler;
+        this.fusedEnrichment = fusedEnrichment;
+        this.enrichmentBatcher = enrichmentBatcher;
+        this.skillExecutor = skillExecutor;
     }
 
     @Override
     public void execute(AgentContext context) {
-        Map<String, Boolean> needs = context.getNeeds();
-        
-        // If needs is not specified, run all skills (backward compatible)
-        if (needs == null || needs.isEmpty()) {
-            for (Skill skill : skills) {
-                skill.apply(context);
+        boolean batched = "batched".equalsIgnoreCase(mode);
+        if (batched || "fused".equalsIgnoreCase(mode)) {
+            // Bounded by timeoutMs, so the join cannot outlive the deadline
+            if (fuse(context, batched).join()) {
+                return;
             }
+            context.addReasoning("Falling back to per-skill execution");
+        }
+
+        SkillPlan plan = skillRegistry.plan(context);
+
+        if ("concurrent".equalsIgnoreCase(mode) && plan.skills().size() > 1) {
+            skillScheduler.runConcurrently(plan, context, timeoutMs);
             return;
         }
-        
-        // Conditional execution based on needs (Auto Organise feature)
-        for (Skill skill : skills) {
-            boolean shouldExecute = false;
-            
-            // Check if this skill is needed
-            if (skill instanceof TitleSkill && needs.getOrDefault("title", false)) {
-                shouldExecute = true;
-            } else if (skill instanceof DescriptionSkill && needs.getOrDefault("description", false)) {
-                shouldExecute = true;
-            } else if (skill instanceof TagSkill && needs.getOrDefault("tags", false)) {
-                shouldExecute = true;
+
+        skillScheduler.runSequentially(plan, context);
+    }
+
+    @Override
+    public CompletableFuture<Void> executeAsync(AgentContext context) {
+        boolean fused = "fused".equalsIgnoreCase(mode);
+        boolean batched = "batched".equalsIgnoreCase(mode);
+
+        CompletableFuture<Boolean> fusedDone = fused || batched
+                ? fuse(context, batched)
+                : CompletableFuture.completedFuture(false);
+
+        return fusedDone.thenCompose(done -> {
+            if (done) {
+                return CompletableFuture.<Void>completedFuture(null);
             }
-            
-            if (shouldExecute) {
-                context.addReasoning("Executing " + skill.getClass().getSimpleName() + " (requested by needs)");
-                skill.apply(context);
-            } else {
-                context.addReasoning("Skipping " + skill.getClass().getSimpleName() + " (not needed)");
+            if (fused || batched) {
+                context.addReasoning("Falling back to per-skill execution");
             }
-        }
+            SkillPlan plan = skillRegistry.plan(context);
+            return skillScheduler.runAsync(plan, context, timeoutMs, "concurrent".equalsIgnoreCase(mode));
+        });
+    }
+
+    /**
+     * Runs the fused or batched enrichment against a view of {@code context}
+     * and waits at most {@code timeoutMs}, like {@link SkillScheduler} does
+     * for a skill. Past the deadline the view is closed, so a late answer
+     * changes nothing, and the result is kept without a per-skill fallback:
+     * the time for that is already spent.
+     */
+    private CompletableFuture<Boolean> fuse(AgentContext context, boolean batched) {
+        AgentContext.SkillView view = context.forSkill();
+        CompletableFuture<Boolean> call = batched
+                ? enrichmentBatcher.submit(view, skillExecutor)
+                : fusedEnrichment.applyAsync(view, skillExecutor);
+        String name = batched ? "EnrichmentBatcher" : "FusedEnrichment";
+
+        return call.copy()
+                .completeOnTimeout(null, timeoutMs, TimeUnit.MILLISECONDS)
+                .handle((ignored, error) -> {
+                    view.close();
+                    if (!call.isDone()) {
+                        call.cancel(true);
+                        context.markDegraded();
+                        log.warn("{} did not finish within {} ms", name, timeoutMs);
+                        context.addReasoning(name + " timed out after " + timeoutMs + " ms");
+                        return true;
+                    }
+                    // The call itself, not the copy: it may have finished just as the copy timed out
+                    return call.join();
+                });
     }
 }
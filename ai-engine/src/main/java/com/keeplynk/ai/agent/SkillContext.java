@@ -0,0 +1,41 @@
+package com.keeplynk.ai.agent;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The part of a request a skill works with: its input, the results so far
+ * and the means to add its own. Implemented by {@link AgentContext} and by
+ * the {@link AgentContext.SkillView} the scheduler hands each skill.
+ */
+public interface SkillContext {
+
+    String getResourceId();
+
+    String getUrl();
+
+    String getPersona();
+
+    String getUserId();
+
+    Map<String, Boolean> getNeeds();
+
+    Map<String, Object> getMemory();
+
+    // Skills write results through here so streaming callers see each one as it lands
+    void putMemory(String key, Object value);
+
+    void addReasoning(String step);
+
+    // Predicted results are stored, but never used to train the URL classifier
+    void markPredicted(String key);
+
+    void markDegraded();
+
+    /**
+     * Aborts {@code call} once this context is closed; only a
+     * {@link AgentContext.SkillView} is ever closed. Skills register their
+     * provider calls here.
+     */
+    <T> CompletableFuture<T> cancelOnClose(CompletableFuture<T> call);
+}
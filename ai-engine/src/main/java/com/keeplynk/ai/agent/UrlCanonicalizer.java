@@ -0,0 +1,83 @@
+package com.keeplynk.ai.agent;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Locale;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * Reduces URLs that point at the same resource to one form, so they share
+ * cache and coalescing keys: lowercased scheme and host, default port,
+ * fragment and tracking parameters dropped, trailing slash removed.
+ */
+public final class UrlCanonicalizer {
+
+    private static final Set<String> TRACKING_PARAMS = Set.of(
+        "fbclid", "gclid", "dclid", "msclkid", "mc_cid", "mc_eid", "igshid", "ref_src"
+    );
+
+    private UrlCanonicalizer() {
+    }
+
+    public static String canonicalize(String url) {
+        if (url == null) {
+            return "";
+        }
+        String trimmed = url.trim();
+
+        URI uri;
+        try {
+            uri = new URI(trimmed);
+        } catch (URISyntaxException e) {
+            return trimmed;
+        }
+        if (uri.getHost() == null) {
+            return trimmed;
+        }
+
+        String scheme = uri.getScheme() != null ? uri.getScheme().toLowerCase(Locale.ROOT) : "http";
+        String host = uri.getHost().toLowerCase(Locale.ROOT);
+        int port = uri.getPort();
+        if (("http".equals(scheme) && port == 80) || ("https".equals(scheme) && port == 443)) {
+            port = -1;
+        }
+
+        String path = uri.getRawPath() == null ? "" : uri.getRawPath();
+        while (path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+
+        StringBuilder canonical = new StringBuilder(trimmed.length())
+                .append(scheme).append("://").append(host);
+        if (port != -1) {
+            canonical.append(':').append(port);
+        }
+        canonical.append(path);
+
+        String query = canonicalQuery(uri.getRawQuery());
+        if (!query.isEmpty()) {
+            canonical.append('?').append(query);
+        }
+        return canonical.toString();
+    }
+
+    private static String canonicalQuery(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return "";
+        }
+        StringJoiner kept = new StringJoiner("&");
+        for (String param : rawQuery.split("&")) {
+            if (param.isEmpty()) {
+                continue;
+            }
+            int eq = param.indexOf('=');
+            String name = (eq < 0 ? param : param.substring(0, eq)).toLowerCase(Locale.ROOT);
+            if (name.startsWith("utm_") || TRACKING_PARAMS.contains(name)) {
+                continue;
+            }
+            kept.add(param);
+        }
+        return kept.toString();
+    }
+}
@@ -0,0 +1,22 @@
+package com.keeplynk.ai.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ConcurrencyConfig {
+
+    /**
+     * Executor used to fan skills out. Skills spend almost all of their time
+     * blocked on LLM round-trips, so one virtual thread per task is cheap.
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService skillExecutor() {
+        return Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("skill-", 0).factory()
+        );
+    }
+}
@@ -23,8 +23,7 @@ public class MongoConfig extends AbstractMongoClientConfiguration {
         String mongoUrl = getMongoUrl();
         System.out.println("=== MongoConfig: Using MongoDB URL: " + mongoUrl);
         
-        ConnectionString connString = new ConnectionString(mongoUrl);
-        return connString.getDatabase() != null ? connString.getDatabase() : "keeplynk_ai";
+        return databaseName(env);
     }
 
     @Override
@@ -39,9 +38,25 @@ public class MongoConfig extends AbstractMongoClientConfiguration {
         return MongoClients.create(settings);
     }
     
+    // AgentMemoryIndexes creates the indexes, once it has merged duplicates
+    @Override
+    protected boolean autoIndexCreation() {
+        return false;
+    }
+
     private String getMongoUrl() {
+        return mongoUrl(env);
+    }
+
+    // Shared with ReactiveMongoConfig
+    static String mongoUrl(Environment env) {
         return env.getProperty("MONGO_URL", 
                env.getProperty("MONGODB_URI", 
                "mongodb://localhost:27017/keeplynk_ai"));
     }
+
+    static String databaseName(Environment env) {
+        ConnectionString connString = new ConnectionString(mongoUrl(env));
+        return connString.getDatabase() != null ? connString.getDatabase() : "keeplynk_ai";
+    }
 }
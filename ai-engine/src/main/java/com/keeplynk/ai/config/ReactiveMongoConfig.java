@@ -0,0 +1,45 @@
+package com.keeplynk.ai.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.SimpleReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+
+/**
+ * Reactive Mongo client for {@code memory.mode=reactive}, on the same URL and
+ * mapping as {@link MongoConfig}. Boot's reactive Mongo auto-configuration is
+ * excluded, so in blocking mode no reactive client or connection pool exists.
+ */
+@Configuration
+@ConditionalOnProperty(name = "memory.mode", havingValue = "reactive")
+public class ReactiveMongoConfig {
+
+    @Bean(destroyMethod = "close")
+    public MongoClient reactiveMongoClient(Environment env) {
+        MongoClientSettings settings = MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(MongoConfig.mongoUrl(env)))
+                .build();
+
+        return MongoClients.create(settings);
+    }
+
+    @Bean
+    public ReactiveMongoTemplate reactiveMongoTemplate(
+        MongoClient reactiveMongoClient,
+        MappingMongoConverter mappingMongoConverter,
+        Environment env
+    ) {
+        return new ReactiveMongoTemplate(
+            new SimpleReactiveMongoDatabaseFactory(reactiveMongoClient, MongoConfig.databaseName(env)),
+            mappingMongoConverter
+        );
+    }
+}
@@ -1,18 +1,44 @@
 package com.keeplynk.ai.controller;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.keeplynk.ai.agent.AgentContext;
 import com.keeplynk.ai.agent.AgentInput;
+import com.keeplynk.ai.agent.EnrichmentKey;
 import com.keeplynk.ai.decision.AgentDecision;
 import com.keeplynk.ai.decision.DecisionEngine;
 import com.keeplynk.ai.orchestrator.AgentExecutor;
+import com.keeplynk.ai.store.EnrichmentStore;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.ObjectWriter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @RestController
 @RequestMapping("/agent")
@@ -20,47 +46,413 @@ public class AgentController {
 
     private static final Logger log = LoggerFactory.getLogger(AgentController.class);
 
+    // Room to write the timeout lines of a batch that reached agent.bulk.timeout-ms
+    private static final long BULK_COMPLETION_MARGIN_MS = 10_000;
+
     private final DecisionEngine decisionEngine;
     private final AgentExecutor agentExecutor;
+    private final EnrichmentStore enrichmentStore;
+    private final ObjectReader inputReader;
+    private final ObjectWriter itemWriter;
+
+    // Batch endpoint: resources enriched at once per request, and how long a batch may run
+    @Value("${agent.bulk.parallelism:16}")
+    private int bulkParallelism;
+
+    @Value("${agent.bulk.timeout-ms:3600000}")
+    private long bulkTimeoutMs;
+
+    // Longer input lines are skipped with an error line rather than buffered
+    @Value("${agent.bulk.max-line-chars:1048576}")
+    private int bulkMaxLineChars;
 
     public AgentController(
         DecisionEngine decisionEngine,
-        AgentExecutor agentExecutor
+        AgentExecutor agentExecutor,
+        EnrichmentStore enrichmentStore,
+        ObjectMapper objectMapper
     ) {
         this.decisionEngine = decisionEngine;
         this.agentExecutor = agentExecutor;
+        this.enrichmentStore = enrichmentStore;
+        this.inputReader = objectMapper.readerFor(AgentInput.class);
+        this.itemWriter = objectMapper.writerFor(BatchItem.class);
     }
 
+    /**
+     * Returns a future so the servlet thread is released while skills wait on
+     * LLM providers; Spring MVC completes the response when the future does.
+     */
     @PostMapping("/resource/enrich")
-    public ResponseEntity<?> enrichResource(@RequestBody AgentInput input) {
+    public CompletableFuture<ResponseEntity<?>> enrichResource(@RequestBody AgentInput input) {
         try {
             log.info("Received enrichment request for URL: {}", input.getUrl());
 
-            AgentDecision decision = decisionEngine.decide(input);
+            return enrich(input, AgentContext.from(input))
+                .<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+                .exceptionally(this::failure);
+            
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(failure(e));
+        }
+    }
+
+    /**
+     * Same enrichment as {@link #enrichResource}, streamed as server-sent
+     * events: one event per result field (named after it, e.g.
+     * {@code suggestedTitle}) and one {@code reasoning} event per step as they
+     * are produced, then a {@code summary} event carrying the full context, or
+     * an {@code error} event.
+     */
+    @PostMapping(value = "/resource/enrich/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter enrichResourceStream(@RequestBody AgentInput input) {
+        log.info("Received streaming enrichment request for URL: {}", input.getUrl());
+
+        SseEmitter emitter = new SseEmitter();
+        EventStream events = new EventStream(emitter);
+        AgentContext context = AgentContext.from(input);
+        context.listen(events);
 
-            if ("NONE".equals(decision.getAction())) {
-                return ResponseEntity.ok(AgentContext.empty(input));
+        CompletableFuture<AgentContext> enrichment;
+        try {
+            enrichment = enrich(input, context);
+        } catch (Exception e) {
+            enrichment = CompletableFuture.failedFuture(e);
+        }
+
+        enrichment.whenComplete((result, error) -> {
+            context.listen(null);
+            if (error != null) {
+                Throwable cause = unwrap(error);
+                log.error("Error enriching resource", cause);
+                events.error(errorBody(cause));
+            } else {
+                events.summary(result);
             }
+        });
+        return emitter;
+    }
 
-            AgentContext context = AgentContext.from(input);
-            context.addReasoning("DecisionEngine selected action: " + decision.getAction());
-            context.addReasoning("Reason: " + decision.getReason());
-            
-            agentExecutor.runResourceAgent(context);
+    /**
+     * Enriches a stream of resources: one {@link AgentInput} per line of
+     * NDJSON in, one {@link BatchItem} per line of NDJSON out, written as each
+     * resource completes (so in completion order) and carrying its
+     * {@code resourceId} and input line. A resource that fails, or a line that
+     * does not parse to an object or is longer than
+     * {@code agent.bulk.max-line-chars}, gets an {@code error} line; the rest
+     * of the batch goes on.
+     *
+     * <p>At most {@code agent.bulk.parallelism} resources are in flight. Input
+     * is read only as slots free up, so memory stays the same whatever the
+     * batch size and a slow reader of the response slows the batch down.
+     * After {@code agent.bulk.timeout-ms} no more input is read, and each
+     * resource still in flight gets an {@code error} line.
+     */
+    @PostMapping(
+        value = "/resource/enrich/batch",
+        consumes = MediaType.APPLICATION_NDJSON_VALUE,
+        produces = MediaType.APPLICATION_NDJSON_VALUE
+    )
+    public ResponseEntity<ResponseBodyEmitter> enrichResourceBatch(InputStream body) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(bulkTimeoutMs + BULK_COMPLETION_MARGIN_MS);
+        BatchRun run = new BatchRun(emitter);
+        Thread.ofVirtual().name("enrich-batch").start(() -> run.process(body));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(emitter);
+    }
 
-            context.getMemory().put("confidence", decision.getConfidence());
+    private CompletableFuture<AgentContext> enrich(AgentInput input, AgentContext context) {
+        EnrichmentKey key = EnrichmentKey.of(input);
+        Optional<Map<String, Object>> stored = enrichmentStore.get(key);
+        if (stored.isPresent()) {
+            stored.get().forEach(context::putMemory);
+            context.addReasoning("Served from enrichment store");
+            log.info("Enrichment store hit for URL: {}", key.canonicalUrl());
+            return CompletableFuture.completedFuture(context);
+        }
 
-            log.info("Successfully enriched resource for URL: {}", input.getUrl());
-            return ResponseEntity.ok(context);
-            
-        } catch (Exception e) {
-            log.error("Error enriching resource", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                .body(Map.of(
-                    "error", "Failed to enrich resource",
-                    "message", e.getMessage(),
-                    "type", e.getClass().getSimpleName()
-                ));
+        AgentDecision decision = decisionEngine.decide(input);
+
+        if ("NONE".equals(decision.getAction())) {
+            return CompletableFuture.completedFuture(context);
+        }
+
+        context.addReasoning("DecisionEngine selected action: " + decision.getAction());
+        context.addReasoning("Reason: " + decision.getReason());
+
+        return agentExecutor.runResourceAgentAsync(context)
+            .thenApply(ignored -> {
+                context.getMemory().put("confidence", decision.getConfidence());
+
+                if (!context.isDegraded()) {
+                    enrichmentStore.put(key, context.getMemory(), context.getPredicted());
+                }
+
+                log.info("Successfully enriched resource for URL: {}", input.getUrl());
+                return context;
+            });
+    }
+
+    private ResponseEntity<?> failure(Throwable error) {
+        Throwable e = unwrap(error);
+        log.error("Error enriching resource", e);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorBody(e));
+    }
+
+    private static Map<String, Object> errorBody(Throwable e) {
+        return Map.of(
+            "error", "Failed to enrich resource",
+            "message", String.valueOf(e.getMessage()),
+            "type", e.getClass().getSimpleName()
+        );
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    // One line of the batch response
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record BatchItem(int line, String resourceId, String status, AgentContext result, Map<String, Object> error) {
+
+        static BatchItem ok(int line, AgentContext result) {
+            return new BatchItem(line, result.getResourceId(), "ok", result, null);
+        }
+
+        static BatchItem failed(int line, String resourceId, Map<String, Object> error) {
+            return new BatchItem(line, resourceId, "error", null, error);
+        }
+    }
+
+    /**
+     * One batch request: reads input lines on its own thread, starts each
+     * resource once a permit is free and writes each result as it completes,
+     * from whichever thread completed it.
+     */
+    private final class BatchRun {
+
+        // Compared by identity
+        private static final String TOO_LONG = new String("<line too long>");
+
+        private final ResponseBodyEmitter emitter;
+        private final Semaphore inFlight = new Semaphore(bulkParallelism);
+        private final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(bulkTimeoutMs);
+        // Started and not yet written, by input line; whoever removes an entry writes its line
+        private final Map<Integer, AgentInput> pending = new ConcurrentHashMap<>();
+        private volatile boolean closed;
+
+        BatchRun(ResponseBodyEmitter emitter) {
+            this.emitter = emitter;
+            emitter.onCompletion(() -> closed = true);
+            emitter.onTimeout(() -> closed = true);
+            emitter.onError(error -> closed = true);
+        }
+
+        void process(InputStream body) {
+            int line = 0;
+            int started = 0;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+                StringBuilder buffer = new StringBuilder();
+                String json;
+                while (!closed && (json = readLine(reader, buffer)) != null) {
+                    line++;
+                    if (json == TOO_LONG) {
+                        write(BatchItem.failed(line, null, errorBody(new IllegalArgumentException(
+                                "Line longer than " + bulkMaxLineChars + " characters"))));
+                        continue;
+                    }
+                    if (json.isBlank()) {
+                        continue;
+                    }
+                    if (!acquire(1)) {
+                        log.warn("Enrichment batch timed out after {} ms, at line {}", bulkTimeoutMs, line);
+                        write(BatchItem.failed(line, null, errorBody(new TimeoutException(
+                                "Batch timed out after " + bulkTimeoutMs + " ms; this and later lines were not read"))));
+                        break;
+                    }
+                    start(line, json);
+                    started++;
+                }
+            } catch (IOException e) {
+                log.warn("Enrichment batch input ended early after {} lines: {}", line, e.getMessage());
+                write(BatchItem.failed(line, null, errorBody(e)));
+            }
+
+            // Wait for the resources still in flight, then end the response
+            if (!acquire(bulkParallelism)) {
+                timeOutPending();
+            }
+            log.info("Enrichment batch finished: {} resources", started);
+            if (!closed) {
+                emitter.complete();
+            }
+        }
+
+        // False once the batch deadline has passed, or when interrupted
+        private boolean acquire(int permits) {
+            long remaining = deadline - System.nanoTime();
+            try {
+                return remaining > 0 && inFlight.tryAcquire(permits, remaining, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        // In input order; these finish (and are stored) anyway, but nobody waits for them
+        private void timeOutPending() {
+            for (Integer line : new TreeSet<>(pending.keySet())) {
+                AgentInput input = pending.remove(line);
+                if (input != null) {
+                    log.warn("Batched resource {} did not finish within {} ms", input.getResourceId(), bulkTimeoutMs);
+                    write(BatchItem.failed(line, input.getResourceId(), errorBody(new TimeoutException(
+                            "Not finished when the batch timed out after " + bulkTimeoutMs + " ms"))));
+                }
+            }
+        }
+
+        /**
+         * The next line without its terminator, or null at the end of input.
+         * A line over {@code agent.bulk.max-line-chars} is read past without
+         * being kept and comes back as {@link #TOO_LONG}.
+         */
+        private String readLine(BufferedReader reader, StringBuilder buffer) throws IOException {
+            buffer.setLength(0);
+            boolean tooLong = false;
+            int c;
+            while ((c = reader.read()) != -1 && c != '\n') {
+                if (tooLong) {
+                    continue;
+                }
+                if (buffer.length() >= bulkMaxLineChars) {
+                    tooLong = true;
+                    buffer.setLength(0);
+                    buffer.trimToSize();
+                    continue;
+                }
+                buffer.append((char) c);
+            }
+            if (c == -1 && buffer.isEmpty() && !tooLong) {
+                return null;
+            }
+            if (tooLong) {
+                return TOO_LONG;
+            }
+            int end = buffer.length();
+            if (end > 0 && buffer.charAt(end - 1) == '\r') {
+                end--;
+            }
+            return buffer.substring(0, end);
+        }
+
+        private void start(int line, String json) {
+            AgentInput input;
+            try {
+                input = inputReader.readValue(json);
+            } catch (JacksonException e) {
+                write(BatchItem.failed(line, null, errorBody(e)));
+                inFlight.release();
+                return;
+            }
+            if (input == null) {
+                // A line of "null"
+                write(BatchItem.failed(line, null, errorBody(new IllegalArgumentException("Line is not a JSON object"))));
+                inFlight.release();
+                return;
+            }
+
+            pending.put(line, input);
+            CompletableFuture<AgentContext> enrichment;
+            try {
+                enrichment = enrich(input, AgentContext.from(input));
+            } catch (Exception e) {
+                enrichment = CompletableFuture.failedFuture(e);
+            }
+            enrichment.whenComplete((result, error) -> {
+                try {
+                    if (pending.remove(line) == null) {
+                        // Already written as timed out
+                        return;
+                    }
+                    if (error != null) {
+                        Throwable cause = unwrap(error);
+                        log.warn("Error enriching batched resource {}: {}", input.getResourceId(), cause.getMessage());
+                        write(BatchItem.failed(line, input.getResourceId(), errorBody(cause)));
+                    } else {
+                        write(BatchItem.ok(line, result));
+                    }
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+
+        private void write(BatchItem item) {
+            if (closed) {
+                return;
+            }
+            try {
+                byte[] json = itemWriter.writeValueAsBytes(item);
+                byte[] ndjsonLine = new byte[json.length + 1];
+                System.arraycopy(json, 0, ndjsonLine, 0, json.length);
+                ndjsonLine[json.length] = '\n';
+                synchronized (this) {
+                    emitter.send(ndjsonLine, MediaType.APPLICATION_NDJSON);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client gone: stop reading; what is in flight finishes (and is stored) anyway
+                closed = true;
+                log.debug("Enrichment batch closed by client: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Forwards context updates to the SSE connection. Sends may come from
+     * several skill threads at once; once the client is gone they are dropped
+     * and the enrichment finishes (and is stored) anyway.
+     */
+    private static final class EventStream implements AgentContext.Listener {
+
+        private final SseEmitter emitter;
+        private volatile boolean closed;
+
+        EventStream(SseEmitter emitter) {
+            this.emitter = emitter;
+            emitter.onCompletion(() -> closed = true);
+            emitter.onTimeout(() -> closed = true);
+            emitter.onError(error -> closed = true);
+        }
+
+        @Override
+        public void onMemory(String key, Object value) {
+            send(SseEmitter.event().name(key).data(Collections.singletonMap("value", value), MediaType.APPLICATION_JSON));
+        }
+
+        @Override
+        public void onReasoning(String step) {
+            send(SseEmitter.event().name("reasoning").data(Map.of("step", step), MediaType.APPLICATION_JSON));
+        }
+
+        void summary(AgentContext context) {
+            send(SseEmitter.event().name("summary").data(context, MediaType.APPLICATION_JSON));
+            emitter.complete();
+        }
+
+        void error(Map<String, Object> body) {
+            send(SseEmitter.event().name("error").data(body, MediaType.APPLICATION_JSON));
+            emitter.complete();
+        }
+
+        private void send(SseEmitter.SseEventBuilder event) {
+            if (closed) {
+                return;
+            }
+            try {
+                emitter.send(event);
+            } catch (IOException | IllegalStateException e) {
+                closed = true;
+                log.debug("Enrichment stream closed by client: {}", e.getMessage());
+            }
         }
     }
 }
@@ -0,0 +1,139 @@
+package com.keeplynk.ai.llm;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Caches provider answers by prompt and generation options in front of the
+ * real client chain.
+ * Skills build their prompts from URL and persona only, so re-saving a popular
+ * link repeats the exact same prompts. Caffeine gives a W-TinyLFU policy that
+ * keeps frequently requested prompts over one-off ones; the cache is bounded
+ * by approximate byte size and entries expire after a TTL.
+ * Hit/miss/eviction counts are published as {@code cache.*} metrics
+ * with {@code cache=llm.responses}.
+ */
+@Component
+@Primary
+public class CachingLlmClient implements LlmClient {
+
+    private static final String CACHE_NAME = "llm.responses";
+
+    // Rough per-entry bookkeeping cost on top of the two strings
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    private final LlmClient delegate;
+    private final boolean enabled;
+    private final Cache<Key, String> cache;
+
+    public CachingLlmClient(
+        LlmRouter delegate,
+        MeterRegistry meterRegistry,
+        @Value("${llm.cache.enabled:true}") boolean enabled,
+        @Value("${llm.cache.max-bytes:33554432}") long maxBytes,
+        @Value("${llm.cache.ttl-minutes:1440}") long ttlMinutes
+    ) {
+        this.delegate = delegate;
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Key key, String response) -> weigh(key.prompt(), response))
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    @Override
+    public String generate(String prompt, GenerationOptions options) {
+        if (!enabled) {
+            return delegate.generate(prompt, options);
+        }
+
+        Key key = new Key(prompt, options);
+        String cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        String response = delegate.generate(prompt, options);
+
+        // Never pin a provider outage in the cache
+        if (!LlmClient.isFailure(response)) {
+            cache.put(key, response);
+        }
+        return response;
+    }
+
+    @Override
+    public CompletableFuture<String> generateAsync(String prompt, GenerationOptions options) {
+        if (!enabled) {
+            return delegate.generateAsync(prompt, options);
+        }
+
+        Key key = new Key(prompt, options);
+        String cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        return delegate.generateAsync(prompt, options).thenApply(response -> {
+            if (!LlmClient.isFailure(response)) {
+                cache.put(key, response);
+            }
+            return response;
+        });
+    }
+
+    // Hits replay the cached answer as one chunk; only streams that ran to the end are cached
+    @Override
+    public CompletableFuture<String> generateStream(String prompt, GenerationOptions options, TokenSink sink) {
+        if (!enabled) {
+            return delegate.generateStream(prompt, options, sink);
+        }
+
+        Key key = new Key(prompt, options);
+        String cached = cache.getIfPresent(key);
+        if (cached != null) {
+            sink.accept(cached);
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        AtomicBoolean cutShort = new AtomicBoolean();
+        CompletableFuture<String> call = delegate.generateStream(prompt, options, chunk -> {
+            boolean more = sink.accept(chunk);
+            if (!more) {
+                cutShort.set(true);
+            }
+            return more;
+        });
+        return LlmFutures.cancelling(call.thenApply(response -> {
+            if (!cutShort.get() && !LlmClient.isFailure(response)) {
+                cache.put(key, response);
+            }
+            return response;
+        }), call);
+    }
+
+    // A tighter budget can truncate the answer, so it is part of the key
+    private record Key(String prompt, GenerationOptions options) {
+    }
+
+    private static int weigh(String prompt, String response) {
+        // Strings are stored as UTF-16 in the worst case
+        long bytes = ENTRY_OVERHEAD_BYTES + 2L * (prompt.length() + response.length());
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+}
@@ -6,7 +6,7 @@ import org.springframework.stereotype.Component;
 public class DummyLlmClient implements LlmClient {
 
     @Override
-    public String generate(String prompt) {
+    public String generate(String prompt, GenerationOptions options) {
         // Smart mock responses based on prompt content
         String lowerPrompt = prompt.toLowerCase();
         
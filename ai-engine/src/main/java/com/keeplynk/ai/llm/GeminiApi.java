@@ -0,0 +1,52 @@
+package com.keeplynk.ai.llm;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Wire format of Gemini's generateContent / streamGenerateContent endpoints.
+ */
+final class GeminiApi {
+
+    // Where the text sits in a response; each streamed event has the same shape
+    static final Object[] TEXT = {"candidates", 0, "content", "parts", 0, "text"};
+
+    // The API rejects more stop sequences than this
+    static final int MAX_STOP = 5;
+
+    // Thinking tokens count against maxOutputTokens; with short budgets they would use it all up
+    static final ThinkingConfig NO_THINKING = new ThinkingConfig(0);
+
+    private GeminiApi() {
+    }
+
+    record GenerateContentRequest(List<Content> contents, GenerationConfig generationConfig) {
+
+        static GenerateContentRequest of(String prompt, GenerationOptions options) {
+            List<String> stop = options.stop();
+            return new GenerateContentRequest(
+                List.of(new Content("user", List.of(new Part(prompt)))),
+                new GenerationConfig(options.maxTokens(), options.temperature(),
+                        stop.subList(0, Math.min(stop.size(), MAX_STOP)), NO_THINKING)
+            );
+        }
+    }
+
+    record GenerationConfig(
+        int maxOutputTokens,
+        double temperature,
+        @JsonInclude(JsonInclude.Include.NON_EMPTY) List<String> stopSequences,
+        ThinkingConfig thinkingConfig
+    ) {
+    }
+
+    record ThinkingConfig(int thinkingBudget) {
+    }
+
+    record Content(String role, List<Part> parts) {
+    }
+
+    record Part(String text) {
+    }
+}
@@ -1,20 +1,16 @@
 package com.keeplynk.ai.llm;
 
-import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.annotation.Bean;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
+
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectWriter;
 
 @Component
-public class GeminiLlmClient implements LlmClient {
+public class GeminiLlmClient implements LlmProvider {
 
     @Value("${llm.gemini.api.key}")
     private String apiKey;
@@ -22,56 +18,76 @@ public class GeminiLlmClient implements LlmClient {
     @Value("${llm.gemini.endpoint}")
     private String endpoint;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final LlmTransport transport;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter requestWriter;
+
+    public GeminiLlmClient(LlmTransport transport, ObjectMapper objectMapper) {
+        this.transport = transport;
+        this.objectMapper = objectMapper;
+        this.requestWriter = objectMapper.writerFor(GeminiApi.GenerateContentRequest.class);
+    }
 
     @Override
-    public String generate(String prompt) {
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("x-goog-api-key", apiKey);   // ✅ CORRECT
-        headers.setContentType(MediaType.APPLICATION_JSON);
-
-        Map<String, Object> body = Map.of(
-            "contents", List.of(
-                Map.of(
-                    "role", "user",
-                    "parts", List.of(
-                        Map.of("text", prompt)
-                    )
-                )
-            )
-        );
+    public String name() {
+        return "gemini";
+    }
 
-        HttpEntity<Map<String, Object>> request =
-            new HttpEntity<>(body, headers);
+    // Failures propagate as LlmProviderException so LlmRouter can track provider health
+    @Override
+    public String generate(String prompt, GenerationOptions options) {
+        byte[] response = transport.postJson(
+            "gemini",
+            endpoint,
+            Map.of("x-goog-api-key", apiKey),
+            requestBody(prompt, options),
+            options.maxTokens()
+        );
+        return parse(response);
+    }
 
-        try {
-            ResponseEntity<Map> response =
-                restTemplate.postForEntity(endpoint, request, Map.class);
+    @Override
+    public CompletableFuture<String> generateAsync(String prompt, GenerationOptions options) {
+        CompletableFuture<byte[]> call = transport.postJsonAsync(
+                "gemini",
+                endpoint,
+                Map.of("x-goog-api-key", apiKey),
+                requestBody(prompt, options),
+                options.maxTokens()
+            );
+        return LlmFutures.cancelling(call.thenApply(this::parse), call);
+    }
 
-            Map responseBody = response.getBody();
+    @Override
+    public CompletableFuture<String> generateStream(String prompt, GenerationOptions options, TokenSink sink) {
+        return transport.postJsonEventStream(
+                "gemini",
+                streamEndpoint(),
+                Map.of("x-goog-api-key", apiKey),
+                requestBody(prompt, options),
+                options.maxTokens(),
+                this::parseChunk,
+                sink
+            );
+    }
 
-            List candidates = (List) responseBody.get("candidates");
-            Map first = (Map) candidates.get(0);
-            Map content = (Map) first.get("content");
-            List parts = (List) content.get("parts");
-            Map textPart = (Map) parts.get(0);
+    // models/x:generateContent -> models/x:streamGenerateContent?alt=sse
+    private String streamEndpoint() {
+        return endpoint.replace(":generateContent", ":streamGenerateContent") + "?alt=sse";
+    }
 
-            return textPart.get("text").toString();
+    private byte[] requestBody(String prompt, GenerationOptions options) {
+        return requestWriter.writeValueAsBytes(GeminiApi.GenerateContentRequest.of(prompt, options));
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            return "AI generation failed (Gemini)";
-        }
+    private String parse(byte[] response) {
+        return ResponseFields.require(name(), objectMapper, response, GeminiApi.TEXT);
     }
-    @Bean
-    public RestTemplate restTemplate() {
-        SimpleClientHttpRequestFactory f = new SimpleClientHttpRequestFactory();
-        f.setConnectTimeout(5000);
-        f.setReadTimeout(8000);
-        return new RestTemplate(f);
+
+    // Each streamed event is a partial GenerateContentResponse; the last may carry no text
+    private String parseChunk(String data) {
+        String text = ResponseFields.find(name(), objectMapper, data, GeminiApi.TEXT);
+        return text != null ? text : "";
     }
 
 }
-
-
@@ -0,0 +1,25 @@
+package com.keeplynk.ai.llm;
+
+import java.util.List;
+
+/**
+ * Output budget for one completion: a cap on generated tokens, stop
+ * sequences and sampling temperature. Every provider maps these onto its own
+ * request fields.
+ */
+public record GenerationOptions(int maxTokens, List<String> stop, double temperature) {
+
+    // What every call used before per-skill budgets
+    public static final GenerationOptions DEFAULT = new GenerationOptions(500, List.of(), 0.7);
+
+    public GenerationOptions {
+        if (maxTokens <= 0) {
+            throw new IllegalArgumentException("maxTokens must be positive: " + maxTokens);
+        }
+        stop = stop == null ? List.of() : List.copyOf(stop);
+    }
+
+    public GenerationOptions withMaxTokens(int maxTokens) {
+        return new GenerationOptions(maxTokens, stop, temperature);
+    }
+}
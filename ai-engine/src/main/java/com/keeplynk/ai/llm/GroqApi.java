@@ -0,0 +1,44 @@
+package com.keeplynk.ai.llm;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Wire format of Groq's OpenAI-compatible chat completions endpoint.
+ */
+final class GroqApi {
+
+    static final String ENDPOINT = "https://api.groq.com/openai/v1/chat/completions";
+    static final String MODEL = "llama-3.3-70b-versatile";
+
+    // Where the text sits in a completion and in a streamed chunk
+    static final Object[] CONTENT = {"choices", 0, "message", "content"};
+    static final Object[] DELTA_CONTENT = {"choices", 0, "delta", "content"};
+
+    // The API rejects more stop sequences than this
+    static final int MAX_STOP = 4;
+
+    private GroqApi() {
+    }
+
+    record ChatRequest(
+        String model,
+        List<Message> messages,
+        double temperature,
+        @JsonProperty("max_tokens") int maxTokens,
+        @JsonInclude(JsonInclude.Include.NON_EMPTY) List<String> stop,
+        boolean stream
+    ) {
+
+        static ChatRequest of(String prompt, GenerationOptions options, boolean stream) {
+            List<String> stop = options.stop();
+            return new ChatRequest(MODEL, List.of(new Message("user", prompt)), options.temperature(),
+                    options.maxTokens(), stop.subList(0, Math.min(stop.size(), MAX_STOP)), stream);
+        }
+    }
+
+    record Message(String role, String content) {
+    }
+}
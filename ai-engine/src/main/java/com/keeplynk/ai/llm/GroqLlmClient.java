@@ -1,89 +1,91 @@
 package com.keeplynk.ai.llm;
 
-import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.annotation.Lazy;
-import org.springframework.context.annotation.Primary;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 
-@Component
-@Primary
-public class GroqLlmClient implements LlmClient {
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectWriter;
 
-    private static final Logger log = LoggerFactory.getLogger(GroqLlmClient.class);
+@Component
+public class GroqLlmClient implements LlmProvider {
 
     @Value("${groq.api.key}")
     private String apiKey;
 
-    private static final String GROQ_ENDPOINT = "https://api.groq.com/openai/v1/chat/completions";
-    
-    private final RestTemplate restTemplate = new RestTemplate();
-    
-    @Autowired
-    @Lazy
-    private GeminiLlmClient geminiLlmClient;
-    
-    @Autowired
-    @Lazy
-    private HuggingFaceLlmClient huggingFaceLlmClient;
+    private final LlmTransport transport;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter requestWriter;
+
+    public GroqLlmClient(LlmTransport transport, ObjectMapper objectMapper) {
+        this.transport = transport;
+        this.objectMapper = objectMapper;
+        this.requestWriter = objectMapper.writerFor(GroqApi.ChatRequest.class);
+    }
 
     @Override
-    public String generate(String prompt) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setBearerAuth(apiKey);
-        headers.setContentType(MediaType.APPLICATION_JSON);
+    public String name() {
+        return "groq";
+    }
 
-        Map<String, Object> body = Map.of(
-            "model", "llama-3.3-70b-versatile",
-            "messages", List.of(
-                Map.of(
-                    "role", "user",
-                    "content", prompt
-                )
-            ),
-            "temperature", 0.7,
-            "max_tokens", 500
+    // Failures propagate as LlmProviderException; LlmRouter decides where to go next
+    @Override
+    public String generate(String prompt, GenerationOptions options) {
+        byte[] response = transport.postJson(
+            "groq",
+            GroqApi.ENDPOINT,
+            Map.of("Authorization", "Bearer " + apiKey),
+            requestBody(prompt, options),
+            options.maxTokens()
         );
+        return parse(response);
+    }
+
+    @Override
+    public CompletableFuture<String> generateAsync(String prompt, GenerationOptions options) {
+        CompletableFuture<byte[]> call = transport.postJsonAsync(
+                "groq",
+                GroqApi.ENDPOINT,
+                Map.of("Authorization", "Bearer " + apiKey),
+                requestBody(prompt, options),
+                options.maxTokens()
+            );
+        return LlmFutures.cancelling(call.thenApply(this::parse), call);
+    }
+
+    @Override
+    public CompletableFuture<String> generateStream(String prompt, GenerationOptions options, TokenSink sink) {
+        return transport.postJsonEventStream(
+                "groq",
+                GroqApi.ENDPOINT,
+                Map.of("Authorization", "Bearer " + apiKey),
+                requestBody(prompt, options, true),
+                options.maxTokens(),
+                this::parseChunk,
+                sink
+            );
+    }
 
-        HttpEntity<Map<String, Object>> request = new HttpEntity<>(body, headers);
+    private byte[] requestBody(String prompt, GenerationOptions options) {
+        return requestBody(prompt, options, false);
+    }
 
-        try {
-            ResponseEntity<Map> response = 
-                restTemplate.postForEntity(GROQ_ENDPOINT, request, Map.class);
+    private byte[] requestBody(String prompt, GenerationOptions options, boolean stream) {
+        return requestWriter.writeValueAsBytes(GroqApi.ChatRequest.of(prompt, options, stream));
+    }
 
-            Map<String, Object> responseBody = response.getBody();
-            
-            List<Map<String, Object>> choices = (List<Map<String, Object>>) responseBody.get("choices");
-            Map<String, Object> firstChoice = choices.get(0);
-            Map<String, Object> message = (Map<String, Object>) firstChoice.get("message");
-            
-            return message.get("content").toString();
+    private String parse(byte[] response) {
+        return ResponseFields.require(name(), objectMapper, response, GroqApi.CONTENT);
+    }
 
-        } catch (Exception e) {
-            log.error("Groq API failed, falling back to Gemini", e);
-            
-            try {
-                return geminiLlmClient.generate(prompt);
-            } catch (Exception e2) {
-                log.error("Gemini API failed, falling back to HuggingFace", e2);
-                
-                try {
-                    return huggingFaceLlmClient.generate(prompt);
-                } catch (Exception e3) {
-                    log.error("All LLM providers failed", e3);
-                    return "AI generation failed - all providers unavailable";
-                }
-            }
+    // One streamed chunk; "[DONE]" and role-only deltas carry no text
+    private String parseChunk(String data) {
+        if ("[DONE]".equals(data)) {
+            return "";
         }
+        String content = ResponseFields.find(name(), objectMapper, data, GroqApi.DELTA_CONTENT);
+        return content != null ? content : "";
     }
 }
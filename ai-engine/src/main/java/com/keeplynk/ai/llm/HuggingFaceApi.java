@@ -0,0 +1,39 @@
+package com.keeplynk.ai.llm;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Wire format of the Hugging Face text-generation inference API.
+ */
+final class HuggingFaceApi {
+
+    static final String ENDPOINT = "https://api-inference.huggingface.co/models/mistralai/Mistral-7B-Instruct-v0.3";
+
+    // The response is an array of generations
+    static final Object[] GENERATED_TEXT = {0, "generated_text"};
+
+    // Sampling requires a strictly positive temperature
+    private static final double MIN_TEMPERATURE = 0.01;
+
+    private HuggingFaceApi() {
+    }
+
+    record InferenceRequest(String inputs, Parameters parameters) {
+
+        static InferenceRequest of(String prompt, GenerationOptions options) {
+            return new InferenceRequest(prompt, new Parameters(options.maxTokens(),
+                    Math.max(MIN_TEMPERATURE, options.temperature()), false, options.stop()));
+        }
+    }
+
+    record Parameters(
+        @JsonProperty("max_new_tokens") int maxNewTokens,
+        double temperature,
+        @JsonProperty("return_full_text") boolean returnFullText,
+        @JsonInclude(JsonInclude.Include.NON_EMPTY) List<String> stop
+    ) {
+    }
+}
@@ -1,59 +1,66 @@
 package com.keeplynk.ai.llm;
 
-import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
+
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectWriter;
 
 @Component
-public class HuggingFaceLlmClient implements LlmClient {
+public class HuggingFaceLlmClient implements LlmProvider {
 
     @Value("${hf.api.key}")
     private String apiKey;
 
-    private static final String HF_ENDPOINT = "https://api-inference.huggingface.co/models/mistralai/Mistral-7B-Instruct-v0.3";
-    
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final LlmTransport transport;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter requestWriter;
+
+    public HuggingFaceLlmClient(LlmTransport transport, ObjectMapper objectMapper) {
+        this.transport = transport;
+        this.objectMapper = objectMapper;
+        this.requestWriter = objectMapper.writerFor(HuggingFaceApi.InferenceRequest.class);
+    }
+
+    @Override
+    public String name() {
+        return "huggingface";
+    }
 
+    // Failures propagate as LlmProviderException so LlmRouter can track provider health
     @Override
-    public String generate(String prompt) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setBearerAuth(apiKey);
-        headers.setContentType(MediaType.APPLICATION_JSON);
-
-        Map<String, Object> body = Map.of(
-            "inputs", prompt,
-            "parameters", Map.of(
-                "max_new_tokens", 500,
-                "temperature", 0.7,
-                "return_full_text", false
-            )
+    public String generate(String prompt, GenerationOptions options) {
+        byte[] response = transport.postJson(
+            "huggingface",
+            HuggingFaceApi.ENDPOINT,
+            Map.of("Authorization", "Bearer " + apiKey),
+            requestBody(prompt, options),
+            options.maxTokens()
         );
+        return parse(response);
+    }
+
+    @Override
+    public CompletableFuture<String> generateAsync(String prompt, GenerationOptions options) {
+        CompletableFuture<byte[]> call = transport.postJsonAsync(
+                "huggingface",
+                HuggingFaceApi.ENDPOINT,
+                Map.of("Authorization", "Bearer " + apiKey),
+                requestBody(prompt, options),
+                options.maxTokens()
+            );
+        return LlmFutures.cancelling(call.thenApply(this::parse), call);
+    }
+
+    private byte[] requestBody(String prompt, GenerationOptions options) {
+        return requestWriter.writeValueAsBytes(HuggingFaceApi.InferenceRequest.of(prompt, options));
+    }
 
-        HttpEntity<Map<String, Object>> request = new HttpEntity<>(body, headers);
-
-        try {
-            ResponseEntity<List> response = 
-                restTemplate.postForEntity(HF_ENDPOINT, request, List.class);
-
-            List<Map<String, Object>> responseBody = response.getBody();
-            
-            if (responseBody != null && !responseBody.isEmpty()) {
-                Map<String, Object> firstResult = responseBody.get(0);
-                return firstResult.get("generated_text").toString();
-            }
-            
-            return "AI generation failed (HuggingFace - Empty response)";
-
-        } catch (Exception e) {
-            e.printStackTrace();
-            return "AI generation failed (HuggingFace)";
-        }
+    // An empty array means nothing was generated
+    private String parse(byte[] response) {
+        return ResponseFields.require(name(), objectMapper, response, HuggingFaceApi.GENERATED_TEXT);
     }
 }
@@ -0,0 +1,41 @@
+package com.keeplynk.ai.llm;
+
+import java.util.Arrays;
+
+/**
+ * Sliding window of the most recent successful call latencies of one
+ * provider, used to derive percentiles such as the hedging delay.
+ */
+class LatencyWindow {
+
+    private final long[] samples;
+    private int next;
+    private int count;
+
+    LatencyWindow(int size) {
+        this.samples = new long[size];
+    }
+
+    synchronized void record(long millis) {
+        samples[next] = millis;
+        next = (next + 1) % samples.length;
+        count = Math.min(count + 1, samples.length);
+    }
+
+    synchronized int count() {
+        return count;
+    }
+
+    /**
+     * @return the requested percentile (0-100), or -1 without samples
+     */
+    synchronized long percentile(double percentile) {
+        if (count == 0) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+        return sorted[Math.max(0, Math.min(index, count - 1))];
+    }
+}
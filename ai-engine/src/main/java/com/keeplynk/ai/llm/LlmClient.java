@@ -1,5 +1,49 @@
 package com.keeplynk.ai.llm;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface LlmClient {
-    String generate(String prompt);
+
+    // Prefix of the placeholder text clients return when no provider could answer
+    String FAILURE_PREFIX = "AI generation failed";
+
+    String generate(String prompt, GenerationOptions options);
+
+    default String generate(String prompt) {
+        return generate(prompt, GenerationOptions.DEFAULT);
+    }
+
+    /**
+     * Non-blocking variant of {@link #generate(String, GenerationOptions)}.
+     * HTTP-backed clients override this so no thread waits on the provider;
+     * the default simply runs the blocking call, which is fine for in-process
+     * clients.
+     */
+    default CompletableFuture<String> generateAsync(String prompt, GenerationOptions options) {
+        return CompletableFuture.completedFuture(generate(prompt, options));
+    }
+
+    default CompletableFuture<String> generateAsync(String prompt) {
+        return generateAsync(prompt, GenerationOptions.DEFAULT);
+    }
+
+    /**
+     * Streams the completion into {@code sink} and completes with the text
+     * received, which is shorter than a full answer when the sink stopped the
+     * stream. The default delivers the whole answer as a single chunk.
+     */
+    default CompletableFuture<String> generateStream(String prompt, GenerationOptions options, TokenSink sink) {
+        return generateAsync(prompt, options).thenApply(text -> {
+            sink.accept(text);
+            return text;
+        });
+    }
+
+    default CompletableFuture<String> generateStream(String prompt, TokenSink sink) {
+        return generateStream(prompt, GenerationOptions.DEFAULT, sink);
+    }
+
+    static boolean isFailure(String response) {
+        return response == null || response.startsWith(FAILURE_PREFIX);
+    }
 }
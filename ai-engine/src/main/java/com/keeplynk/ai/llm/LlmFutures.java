@@ -0,0 +1,24 @@
+package com.keeplynk.ai.llm;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+/**
+ * CompletableFuture does not propagate cancel() to the stages it was derived
+ * from. Provider calls need that, so that cancelling a losing hedge attempt
+ * actually aborts its HTTP exchange.
+ */
+final class LlmFutures {
+
+    private LlmFutures() {
+    }
+
+    static <T> CompletableFuture<T> cancelling(CompletableFuture<T> downstream, Future<?> upstream) {
+        downstream.whenComplete((ignored, error) -> {
+            if (downstream.isCancelled()) {
+                upstream.cancel(true);
+            }
+        });
+        return downstream;
+    }
+}
@@ -0,0 +1,11 @@
+package com.keeplynk.ai.llm;
+
+/**
+ * An {@link LlmClient} backed by one remote provider. {@link LlmRouter}
+ * picks among these; callers normally inject the {@code @Primary} client.
+ */
+public interface LlmProvider extends LlmClient {
+
+    // Stable id used in properties (llm.http.<name>.*, llm.router.order) and metrics
+    String name();
+}
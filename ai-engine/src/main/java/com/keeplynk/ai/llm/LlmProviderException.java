@@ -0,0 +1,30 @@
+package com.keeplynk.ai.llm;
+
+/**
+ * A call to one LLM provider failed: transport error, timeout, or non-2xx answer.
+ */
+public class LlmProviderException extends RuntimeException {
+
+    private final String provider;
+    private final int statusCode; // -1 when no HTTP response was received
+
+    public LlmProviderException(String provider, int statusCode, String message) {
+        super(provider + ": " + message);
+        this.provider = provider;
+        this.statusCode = statusCode;
+    }
+
+    public LlmProviderException(String provider, String message, Throwable cause) {
+        super(provider + ": " + message, cause);
+        this.provider = provider;
+        this.statusCode = -1;
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
@@ -0,0 +1,27 @@
+package com.keeplynk.ai.llm;
+
+import java.time.Duration;
+
+/**
+ * A provider is over quota or out of capacity, either per its own 429/503
+ * answer or because local admission refused the call. Says nothing about the
+ * provider's health; the router simply tries another one.
+ */
+public class LlmRateLimitedException extends LlmProviderException {
+
+    private final Duration retryAfter;
+
+    public LlmRateLimitedException(String provider, Duration retryAfter, String message) {
+        super(provider, 429, message);
+        this.retryAfter = retryAfter;
+    }
+
+    public LlmRateLimitedException(String provider, int statusCode, Duration retryAfter, String message) {
+        super(provider, statusCode, message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
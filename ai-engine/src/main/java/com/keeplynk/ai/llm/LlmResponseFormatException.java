@@ -0,0 +1,16 @@
+package com.keeplynk.ai.llm;
+
+/**
+ * A provider answered 2xx but the body was not what its API promises:
+ * invalid JSON, or the expected field is missing.
+ */
+public class LlmResponseFormatException extends LlmProviderException {
+
+    public LlmResponseFormatException(String provider, String message) {
+        super(provider, 200, message);
+    }
+
+    public LlmResponseFormatException(String provider, String message, Throwable cause) {
+        super(provider, message, cause);
+    }
+}
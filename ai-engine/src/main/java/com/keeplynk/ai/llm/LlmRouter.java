@@ -0,0 +1,421 @@
+package com.keeplynk.ai.llm;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Routes each prompt to the healthiest provider. Every provider has a
+ * {@link ProviderHealth} (circuit breaker, EWMA latency and error rate);
+ * per call the providers are ranked by score, with {@code llm.router.order}
+ * breaking ties, and those with an open circuit are skipped outright, so an
+ * outage costs no extra latency once the breaker has tripped. Providers that
+ * are currently throttled by {@link LlmTransport} (Retry-After, exhausted
+ * quota) are ranked last, and a rate-limited call fails over without
+ * counting against the provider's health.
+ *
+ * <p>The best provider gets the request; if it has not answered after the
+ * hedge delay (its observed p90 by default), the next one is asked as well
+ * and whichever answers first wins, the other call being cancelled. A
+ * provider that fails outright is replaced by the next one immediately.
+ *
+ * <p>Hedges are drawn from a token bucket that earns {@code llm.hedge.max-ratio}
+ * of a token per request, so at most that share of requests is sent twice.
+ */
+@Component
+public class LlmRouter implements LlmClient {
+
+    private static final Logger log = LoggerFactory.getLogger(LlmRouter.class);
+
+    // Below this many samples the percentile is noise; use the initial delay
+    private static final int MIN_SAMPLES = 20;
+
+    private final List<LlmProvider> providers;
+    private final LlmTransport transport;
+    private final Map<String, ProviderHealth> health = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final HedgeBudget budget;
+
+    private final Counter hedgesFired;
+    private final Counter hedgesWon;
+    private final Counter hedgesDenied;
+
+    @Value("${llm.hedge.enabled:true}")
+    private boolean hedgeEnabled;
+
+    // Fixed hedge delay; 0 derives it from the primary's latency percentile
+    @Value("${llm.hedge.delay-ms:0}")
+    private long fixedDelayMs;
+
+    @Value("${llm.hedge.percentile:90}")
+    private double percentile;
+
+    @Value("${llm.hedge.initial-delay-ms:2000}")
+    private long initialDelayMs;
+
+    @Value("${llm.hedge.min-delay-ms:200}")
+    private long minDelayMs;
+
+    // Weight of the newest call in the latency and error averages
+    @Value("${llm.router.ewma-alpha:0.2}")
+    private double ewmaAlpha;
+
+    // Assumed latency of a provider before it has answered anything
+    @Value("${llm.router.initial-latency-ms:1000}")
+    private long initialLatencyMs;
+
+    // Score multiplier per unit of error rate
+    @Value("${llm.router.error-penalty:4}")
+    private double errorPenalty;
+
+    @Value("${llm.breaker.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${llm.breaker.error-rate-threshold:0.5}")
+    private double errorRateThreshold;
+
+    @Value("${llm.breaker.min-calls:10}")
+    private int minCalls;
+
+    @Value("${llm.breaker.open-ms:30000}")
+    private long openMs;
+
+    public LlmRouter(
+        List<LlmProvider> providers,
+        LlmTransport transport,
+        MeterRegistry meterRegistry,
+        @Value("${llm.router.order:groq,gemini,huggingface}") List<String> order,
+        @Value("${llm.hedge.max-ratio:0.1}") double maxRatio,
+        @Value("${llm.hedge.burst:10}") double burst
+    ) {
+        this.providers = new ArrayList<>(providers);
+        // Providers missing from the order are kept as a last resort
+        this.providers.sort(Comparator.comparingInt(provider -> {
+            int index = order.indexOf(provider.name());
+            return index < 0 ? Integer.MAX_VALUE : index;
+        }));
+        this.transport = transport;
+        this.meterRegistry = meterRegistry;
+        this.budget = new HedgeBudget(maxRatio, burst);
+
+        this.hedgesFired = Counter.builder("llm.hedge.requests").tag("outcome", "fired").register(meterRegistry);
+        this.hedgesWon = Counter.builder("llm.hedge.requests").tag("outcome", "won").register(meterRegistry);
+        this.hedgesDenied = Counter.builder("llm.hedge.requests").tag("outcome", "denied").register(meterRegistry);
+
+        log.info("LLM provider preference: {}", this.providers.stream().map(LlmProvider::name).toList());
+    }
+
+    @PostConstruct
+    void init() {
+        ProviderHealth.Settings settings = new ProviderHealth.Settings(
+            ewmaAlpha, initialLatencyMs, errorPenalty, failureThreshold, errorRateThreshold, minCalls, openMs
+        );
+        for (LlmProvider provider : providers) {
+            ProviderHealth providerHealth = new ProviderHealth(settings);
+            health.put(provider.name(), providerHealth);
+
+            Gauge.builder("llm.provider.circuit", providerHealth, h -> h.state().ordinal())
+                    .description("0 closed, 1 open, 2 half-open")
+                    .tag("provider", provider.name())
+                    .register(meterRegistry);
+            Gauge.builder("llm.provider.latency.ewma", providerHealth, ProviderHealth::latencyMs)
+                    .baseUnit("milliseconds")
+                    .tag("provider", provider.name())
+                    .register(meterRegistry);
+            Gauge.builder("llm.provider.error.rate", providerHealth, ProviderHealth::errorRate)
+                    .tag("provider", provider.name())
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * @throws LlmUnavailableException when no provider produced an answer
+     */
+    @Override
+    public String generate(String prompt, GenerationOptions options) {
+        try {
+            return generateAsync(prompt, options).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // Fails with LlmUnavailableException when no provider produced an answer
+    @Override
+    public CompletableFuture<String> generateAsync(String prompt, GenerationOptions options) {
+        return new HedgedCall(prompt, options, ranked()).start();
+    }
+
+    /**
+     * Streams from the healthiest provider. Streams are not hedged, since two
+     * would interleave in the sink; a provider that fails before its first
+     * chunk is replaced by the next one, a failure mid-stream fails the call.
+     */
+    @Override
+    public CompletableFuture<String> generateStream(String prompt, GenerationOptions options, TokenSink sink) {
+        return stream(prompt, options, sink, ranked(), 0, new CopyOnWriteArrayList<>());
+    }
+
+    private CompletableFuture<String> stream(
+        String prompt,
+        GenerationOptions options,
+        TokenSink sink,
+        List<LlmProvider> candidates,
+        int from,
+        List<Throwable> failures
+    ) {
+        int index = from;
+        while (index < candidates.size() && !health.get(candidates.get(index).name()).tryAcquire()) {
+            index++;
+        }
+        if (index == candidates.size()) {
+            return CompletableFuture.failedFuture(
+                new LlmUnavailableException("All LLM providers failed or have an open circuit", failures)
+            );
+        }
+        LlmProvider provider = candidates.get(index);
+        ProviderHealth providerHealth = health.get(provider.name());
+        int next = index + 1;
+
+        AtomicBoolean started = new AtomicBoolean();
+        CompletableFuture<String> attempt;
+        try {
+            attempt = provider.generateStream(prompt, options, chunk -> {
+                started.set(true);
+                return sink.accept(chunk);
+            });
+        } catch (RuntimeException e) {
+            attempt = CompletableFuture.failedFuture(e);
+        }
+
+        CompletableFuture<String> result = attempt
+                .handle((text, error) -> {
+                    if (error == null) {
+                        providerHealth.onSuccess();
+                        return CompletableFuture.completedFuture(text);
+                    }
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error;
+                    if (cause instanceof CancellationException || cause instanceof LlmRateLimitedException) {
+                        providerHealth.onInconclusive();
+                    } else {
+                        providerHealth.onFailure();
+                    }
+                    if (started.get() || cause instanceof CancellationException) {
+                        return CompletableFuture.<String>failedFuture(cause);
+                    }
+                    log.warn("LLM provider {} failed to stream: {}", provider.name(), cause.getMessage());
+                    failures.add(cause);
+                    return stream(prompt, options, sink, candidates, next, failures);
+                })
+                .thenCompose(Function.identity());
+        return LlmFutures.cancelling(result, attempt);
+    }
+
+    // Stable sort: equal scores keep the configured preference order
+    private List<LlmProvider> ranked() {
+        List<LlmProvider> ranked = new ArrayList<>(providers);
+        Map<String, Double> scores = new HashMap<>();
+        ranked.forEach(provider -> scores.put(provider.name(), transport.isThrottled(provider.name())
+                ? Double.MAX_VALUE
+                : health.get(provider.name()).score()));
+        ranked.sort(Comparator.comparingDouble(provider -> scores.get(provider.name())));
+        return ranked;
+    }
+
+    private long hedgeDelayMs(LlmProvider primary) {
+        if (fixedDelayMs > 0) {
+            return fixedDelayMs;
+        }
+        LatencyWindow window = health.get(primary.name()).latencies();
+        if (window.count() < MIN_SAMPLES) {
+            return initialDelayMs;
+        }
+        return Math.max(minDelayMs, window.percentile(percentile));
+    }
+
+    /**
+     * One routed prompt: tracks which of the ranked providers have been asked
+     * and how many calls are still running, and settles {@code result}
+     * exactly once.
+     */
+    private final class HedgedCall {
+
+        private final String prompt;
+        private final GenerationOptions options;
+        private final List<LlmProvider> candidates;
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+        private final List<CompletableFuture<String>> attempts = new CopyOnWriteArrayList<>();
+        private final List<Throwable> failures = new CopyOnWriteArrayList<>();
+
+        // Guarded by this
+        private int next;
+        private int running;
+
+        HedgedCall(String prompt, GenerationOptions options, List<LlmProvider> candidates) {
+            this.prompt = prompt;
+            this.options = options;
+            this.candidates = candidates;
+        }
+
+        CompletableFuture<String> start() {
+            budget.deposit();
+            // Settled by a winner, or cancelled by the caller: stop everything else
+            result.whenComplete((response, error) -> attempts.forEach(attempt -> attempt.cancel(true)));
+
+            LlmProvider primary = launch(false);
+
+            if (primary != null && hedgeEnabled && candidates.size() > 1) {
+                CompletableFuture.delayedExecutor(hedgeDelayMs(primary), TimeUnit.MILLISECONDS).execute(this::hedge);
+            }
+            return result;
+        }
+
+        private void hedge() {
+            synchronized (this) {
+                if (result.isDone() || running == 0 || next >= candidates.size()) {
+                    return;
+                }
+            }
+            if (!budget.tryAcquire()) {
+                hedgesDenied.increment();
+                return;
+            }
+            if (launch(true) != null) {
+                hedgesFired.increment();
+            } else {
+                budget.refund();
+            }
+        }
+
+        // Starts a call on the next provider whose circuit admits it; null if none did
+        private LlmProvider launch(boolean hedge) {
+            LlmProvider provider = null;
+            synchronized (this) {
+                if (result.isDone()) {
+                    return null;
+                }
+                while (next < candidates.size() && provider == null) {
+                    LlmProvider candidate = candidates.get(next++);
+                    if (health.get(candidate.name()).tryAcquire()) {
+                        provider = candidate;
+                    }
+                }
+                if (provider == null) {
+                    if (running == 0) {
+                        log.error("No LLM provider available ({} failed)", failures.size());
+                        result.completeExceptionally(
+                            new LlmUnavailableException("All LLM providers failed or have an open circuit", failures)
+                        );
+                    }
+                    return null;
+                }
+                running++;
+            }
+
+            long started = System.nanoTime();
+            CompletableFuture<String> attempt;
+            try {
+                attempt = provider.generateAsync(prompt, options);
+            } catch (RuntimeException e) {
+                attempt = CompletableFuture.failedFuture(e);
+            }
+            attempts.add(attempt);
+            if (result.isDone()) {
+                attempt.cancel(true);
+            }
+            LlmProvider launched = provider;
+            attempt.whenComplete((response, error) -> completed(launched, hedge, started, response, error));
+            return provider;
+        }
+
+        private void completed(LlmProvider provider, boolean hedge, long started, String response, Throwable error) {
+            ProviderHealth providerHealth = health.get(provider.name());
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            boolean failed = error != null || LlmClient.isFailure(response);
+            boolean failover;
+            synchronized (this) {
+                running--;
+                failover = failed && running == 0;
+            }
+
+            if (!failed) {
+                providerHealth.onSuccess(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+                if (result.complete(response) && hedge) {
+                    hedgesWon.increment();
+                }
+                return;
+            }
+
+            if (cause instanceof CancellationException) {
+                providerHealth.onInconclusive();
+            } else if (cause instanceof LlmRateLimitedException) {
+                providerHealth.onInconclusive();
+                failures.add(cause);
+                log.info("LLM provider {} rate limited: {}", provider.name(), cause.getMessage());
+            } else {
+                providerHealth.onFailure();
+                failures.add(cause != null ? cause : new LlmProviderException(provider.name(), -1, response));
+                log.warn("LLM provider {} failed: {}", provider.name(), cause != null ? cause.getMessage() : response);
+            }
+            // With another call still running, let that one finish first
+            if (failover) {
+                launch(false);
+            }
+        }
+    }
+
+    // Each request earns `ratio` of a hedge token, capped at `burst` tokens
+    private static final class HedgeBudget {
+
+        private final double ratio;
+        private final double burst;
+        private double tokens;
+
+        HedgeBudget(double ratio, double burst) {
+            this.ratio = ratio;
+            this.burst = burst;
+            this.tokens = burst;
+        }
+
+        synchronized void deposit() {
+            tokens = Math.min(burst, tokens + ratio);
+        }
+
+        synchronized boolean tryAcquire() {
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+            return true;
+        }
+
+        synchronized void refund() {
+            tokens = Math.min(burst, tokens + 1);
+        }
+    }
+}
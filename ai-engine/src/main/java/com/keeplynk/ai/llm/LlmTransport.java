@@ -0,0 +1,390 @@
+package com.keeplynk.ai.llm;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * One HTTP/2 client shared by every LLM provider. Connections are pooled and
+ * kept alive across calls, so a request normally reuses an open TLS session
+ * instead of paying a handshake. Each provider gets its own read timeout
+ * ({@code llm.http.<provider>.read-timeout-ms}) and a {@link ProviderAdmission}
+ * enforcing its quotas ({@code llm.rate.<provider>.rpm} / {@code .tpm}) and an
+ * adaptive concurrency limit capped at {@code llm.http.<provider>.max-concurrent},
+ * each falling back to the {@code llm.http.*} / {@code llm.rate.*} defaults.
+ */
+@Component
+public class LlmTransport {
+
+    private static final int MAX_ERROR_BODY_CHARS = 300;
+
+    private final Environment env;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService executor;
+    private final HttpClient httpClient;
+    private final Map<String, ProviderLimits> limits = new ConcurrentHashMap<>();
+
+    @Value("${llm.http.read-timeout-ms:8000}")
+    private long defaultReadTimeoutMs;
+
+    @Value("${llm.http.max-concurrent:64}")
+    private int defaultMaxConcurrent;
+
+    // How long a caller may queue for a free slot before the call fails
+    @Value("${llm.http.acquire-timeout-ms:2000}")
+    private long acquireTimeoutMs;
+
+    @Value("${llm.http.initial-concurrency:8}")
+    private int initialConcurrency;
+
+    @Value("${llm.http.min-concurrency:1}")
+    private int minConcurrency;
+
+    // Multiplicative decrease of the concurrency limit on 429/503/timeouts
+    @Value("${llm.http.backoff-ratio:0.5}")
+    private double backoffRatio;
+
+    // Latency per output token above this multiple of the recent median shrinks the limit
+    @Value("${llm.http.latency-tolerance:2.0}")
+    private double latencyTolerance;
+
+    // Used when a 429/503 carries no Retry-After
+    @Value("${llm.rate.default-retry-after-ms:1000}")
+    private long defaultRetryAfterMs;
+
+    public LlmTransport(
+        Environment env,
+        MeterRegistry meterRegistry,
+        @Value("${llm.http.connect-timeout-ms:5000}") long connectTimeoutMs
+    ) {
+        this.env = env;
+        this.meterRegistry = meterRegistry;
+        // Idle connections are kept for jdk.httpclient.keepalive.timeout, set in AiEngineApplication.main
+
+        this.executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("llm-http-", 0).factory()
+        );
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .executor(executor)
+                .build();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        httpClient.close();
+        executor.close();
+    }
+
+    /**
+     * POSTs a JSON body and returns the raw response body. {@code maxTokens}
+     * is the completion cap sent in the body; it is charged to the provider's
+     * tokens-per-minute quota together with the prompt.
+     *
+     * @throws LlmProviderException on timeout, I/O failure or a non-2xx status
+     */
+    public byte[] postJson(String provider, String url, Map<String, String> headers, byte[] body, int maxTokens) {
+        ProviderLimits providerLimits = limitsFor(provider);
+        HttpRequest request = jsonRequest(providerLimits, url, headers, body);
+
+        long admittedAt = acquire(provider, providerLimits.admission(), body, maxTokens);
+        HttpResponse<byte[]> response = null;
+        Throwable failure = null;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            return checkStatus(provider, response);
+        } catch (IOException e) {
+            failure = e;
+            throw new LlmProviderException(provider, e.getClass().getSimpleName() + " " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            failure = e;
+            Thread.currentThread().interrupt();
+            throw new LlmProviderException(provider, "interrupted", e);
+        } finally {
+            providerLimits.admission().release(admittedAt, maxTokens, response, failure);
+        }
+    }
+
+    /**
+     * Non-blocking variant of {@link #postJson}. No caller thread is held while
+     * the request is queued for a slot or in flight; the future fails with
+     * {@link LlmProviderException} in the same cases. Cancelling it releases
+     * the slot and aborts the exchange.
+     */
+    public CompletableFuture<byte[]> postJsonAsync(
+        String provider,
+        String url,
+        Map<String, String> headers,
+        byte[] body,
+        int maxTokens
+    ) {
+        ProviderLimits providerLimits = limitsFor(provider);
+        HttpRequest request = jsonRequest(providerLimits, url, headers, body);
+
+        CompletableFuture<byte[]> result = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<HttpResponse<byte[]>>> exchange = new AtomicReference<>();
+
+        // Waiting for a slot parks a virtual thread, never a request thread
+        CompletableFuture.supplyAsync(() -> {
+                    if (result.isDone()) {
+                        throw new CancellationException();
+                    }
+                    return acquire(provider, providerLimits.admission(), body, maxTokens);
+                }, executor)
+                .thenCompose(admittedAt -> {
+                    CompletableFuture<HttpResponse<byte[]>> sent;
+                    try {
+                        sent = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+                    } catch (RuntimeException e) {
+                        // e.g. a closed client; nothing will complete, so the slot is given back here
+                        providerLimits.admission().release(admittedAt, maxTokens, null, e);
+                        throw e;
+                    }
+                    exchange.set(sent);
+                    if (result.isDone()) {
+                        sent.cancel(true);
+                    }
+                    return sent.whenComplete((response, error) ->
+                            providerLimits.admission().release(admittedAt, maxTokens, response, unwrap(error)));
+                })
+                .whenComplete((response, error) -> {
+                    try {
+                        if (error != null) {
+                            result.completeExceptionally(translate(provider, error));
+                        } else {
+                            result.complete(checkStatus(provider, response));
+                        }
+                    } catch (LlmProviderException e) {
+                        result.completeExceptionally(e);
+                    }
+                });
+
+        // Cancelling the returned future (e.g. a losing hedge) aborts the HTTP/2 stream
+        result.whenComplete((response, error) -> {
+            CompletableFuture<HttpResponse<byte[]>> sent = exchange.get();
+            if (result.isCancelled() && sent != null) {
+                sent.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * POSTs a JSON body and hands the response to {@code onLine} line by
+     * line (e.g. server-sent events) as it arrives. Returning false from
+     * {@code onLine} stops reading and aborts the exchange, as does cancelling
+     * the returned future. Lines are read on a virtual thread.
+     */
+    public CompletableFuture<Void> postJsonStream(
+        String provider,
+        String url,
+        Map<String, String> headers,
+        byte[] body,
+        int maxTokens,
+        Predicate<String> onLine
+    ) {
+        ProviderLimits providerLimits = limitsFor(provider);
+        HttpRequest request = jsonRequest(providerLimits, url, headers, body);
+
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        Future<?> reader = executor.submit(() -> {
+            long admittedAt;
+            try {
+                admittedAt = acquire(provider, providerLimits.admission(), body, maxTokens);
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+                return;
+            }
+            // From here on every path, including a synchronous throw from send, goes through finally
+            HttpResponse<InputStream> response = null;
+            Throwable failure = null;
+            try {
+                if (result.isDone()) {
+                    return;
+                }
+                response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+                // Closing the body before it is fully read cancels the exchange
+                try (InputStream in = response.body()) {
+                    if (response.statusCode() / 100 != 2) {
+                        throw statusError(provider, response.statusCode(), response.headers(),
+                                in.readNBytes(MAX_ERROR_BODY_CHARS));
+                    }
+                    BufferedReader lines = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+                    String line;
+                    while ((line = lines.readLine()) != null && !result.isDone()) {
+                        if (!onLine.test(line)) {
+                            break;
+                        }
+                    }
+                }
+                result.complete(null);
+            } catch (IOException e) {
+                failure = e;
+                result.completeExceptionally(
+                        new LlmProviderException(provider, e.getClass().getSimpleName() + " " + e.getMessage(), e));
+            } catch (InterruptedException e) {
+                failure = e;
+                result.completeExceptionally(new LlmProviderException(provider, "interrupted", e));
+            } catch (RuntimeException e) {
+                failure = e;
+                result.completeExceptionally(e);
+            } finally {
+                providerLimits.admission().release(admittedAt, maxTokens, response, failure);
+            }
+        });
+        return LlmFutures.cancelling(result, reader);
+    }
+
+    /**
+     * Streams a completion sent as server-sent events. {@code textOf} extracts
+     * the text carried by one event's data (empty if none); each non-empty
+     * piece goes to {@code sink}. Completes with all text received.
+     */
+    public CompletableFuture<String> postJsonEventStream(
+        String provider,
+        String url,
+        Map<String, String> headers,
+        byte[] body,
+        int maxTokens,
+        Function<String, String> textOf,
+        TokenSink sink
+    ) {
+        // Only touched by the reader thread; published by the future's completion
+        StringBuilder text = new StringBuilder();
+        CompletableFuture<Void> stream = postJsonStream(provider, url, headers, body, maxTokens, line -> {
+            if (!line.startsWith("data:")) {
+                return true;
+            }
+            String chunk = textOf.apply(line.substring(5).trim());
+            if (chunk == null || chunk.isEmpty()) {
+                return true;
+            }
+            text.append(chunk);
+            return sink.accept(chunk);
+        });
+        return LlmFutures.cancelling(stream.thenApply(ignored -> text.toString()), stream);
+    }
+
+    private HttpRequest jsonRequest(ProviderLimits providerLimits, String url, Map<String, String> headers, byte[] body) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(providerLimits.readTimeout())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body));
+        headers.forEach(request::header);
+        return request.build();
+    }
+
+    private static byte[] checkStatus(String provider, HttpResponse<byte[]> response) {
+        if (response.statusCode() / 100 != 2) {
+            throw statusError(provider, response.statusCode(), response.headers(), response.body());
+        }
+        return response.body();
+    }
+
+    private static LlmProviderException statusError(String provider, int status, HttpHeaders headers, byte[] body) {
+        String message = "HTTP " + status + " " + abbreviate(body);
+        if (status == 429 || status == 503) {
+            return new LlmRateLimitedException(provider, status,
+                    ProviderAdmission.retryAfter(headers.firstValue("Retry-After").orElse(null)), message);
+        }
+        return new LlmProviderException(provider, status, message);
+    }
+
+    private static LlmProviderException translate(String provider, Throwable error) {
+        Throwable cause = unwrap(error);
+        if (cause instanceof LlmProviderException providerException) {
+            return providerException;
+        }
+        return new LlmProviderException(provider, cause.getClass().getSimpleName() + " " + cause.getMessage(), cause);
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * True while the provider has told us to back off (Retry-After or an
+     * exhausted rate-limit window), so a call would only be refused.
+     */
+    public boolean isThrottled(String provider) {
+        ProviderLimits providerLimits = limits.get(provider);
+        return providerLimits != null && providerLimits.admission().isThrottled();
+    }
+
+    private long acquire(String provider, ProviderAdmission admission, byte[] body, int maxTokens) {
+        try {
+            return admission.acquire(estimateTokens(body, maxTokens), acquireTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LlmProviderException(provider, "interrupted", e);
+        }
+    }
+
+    // ~4 bytes of JSON per token is close enough; providers count the completion cap up front
+    private static int estimateTokens(byte[] body, int maxTokens) {
+        return body.length / 4 + maxTokens;
+    }
+
+    private ProviderLimits limitsFor(String provider) {
+        return limits.computeIfAbsent(provider, this::createLimits);
+    }
+
+    private ProviderLimits createLimits(String name) {
+        ProviderAdmission admission = new ProviderAdmission(name, new ProviderAdmission.Settings(
+                env.getProperty("llm.rate." + name + ".rpm", Integer.class, 0),
+                env.getProperty("llm.rate." + name + ".tpm", Integer.class, 0),
+                initialConcurrency,
+                minConcurrency,
+                env.getProperty("llm.http." + name + ".max-concurrent", Integer.class, defaultMaxConcurrent),
+                backoffRatio,
+                latencyTolerance,
+                defaultRetryAfterMs
+        ));
+        Gauge.builder("llm.provider.concurrency.limit", admission, ProviderAdmission::limit)
+                .tag("provider", name)
+                .register(meterRegistry);
+
+        return new ProviderLimits(
+            Duration.ofMillis(env.getProperty("llm.http." + name + ".read-timeout-ms", Long.class, defaultReadTimeoutMs)),
+            admission
+        );
+    }
+
+    private static String abbreviate(byte[] body) {
+        String text = new String(body, StandardCharsets.UTF_8);
+        return text.length() <= MAX_ERROR_BODY_CHARS ? text : text.substring(0, MAX_ERROR_BODY_CHARS) + "...";
+    }
+
+    private record ProviderLimits(Duration readTimeout, ProviderAdmission admission) {
+    }
+}
@@ -0,0 +1,16 @@
+package com.keeplynk.ai.llm;
+
+import java.util.List;
+
+/**
+ * No provider produced an answer: every one that was tried failed, and the
+ * rest had their circuit open. The individual provider failures are attached
+ * as suppressed exceptions.
+ */
+public class LlmUnavailableException extends RuntimeException {
+
+    public LlmUnavailableException(String message, List<? extends Throwable> failures) {
+        super(message);
+        failures.forEach(this::addSuppressed);
+    }
+}
@@ -9,7 +9,7 @@ public class OpenAiLlmClient implements LlmClient {
     private String apiKey;
 
     @Override
-    public String generate(String prompt) {
+    public String generate(String prompt, GenerationOptions options) {
 
         // PSEUDO CODE (we keep it simple for now)
         // Call provider
@@ -0,0 +1,294 @@
+package com.keeplynk.ai.llm;
+
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Decides when a request to one provider may go out. Three limits apply:
+ * <ul>
+ *   <li>token buckets for the provider's requests-per-minute and
+ *       tokens-per-minute quotas, kept in sync with the
+ *       {@code x-ratelimit-remaining-*} headers it returns;</li>
+ *   <li>a block until the time given by {@code Retry-After} or
+ *       {@code x-ratelimit-reset-*} once the provider says a quota is spent;</li>
+ *   <li>an AIMD concurrency limit: +1/limit per healthy answer, cut by
+ *       {@code backoffRatio} on 429/503/timeouts, trimmed when latency per
+ *       requested output token climbs past {@code latencyTolerance} times its
+ *       median over recent calls.</li>
+ * </ul>
+ * Callers wait at most their acquire timeout. When the wait is known to be
+ * longer they are refused at once, so the router can go elsewhere.
+ */
+class ProviderAdmission {
+
+    record Settings(
+        int requestsPerMinute,
+        int tokensPerMinute,
+        int initialLimit,
+        int minLimit,
+        int maxLimit,
+        double backoffRatio,
+        double latencyTolerance,
+        long defaultRetryAfterMs
+    ) {
+    }
+
+    // Applied when latency, rather than an explicit overload signal, suggests queueing
+    private static final double LATENCY_BACKOFF = 0.9;
+    // Recent calls the latency baseline is the median of
+    private static final int BASELINE_WINDOW = 100;
+    // Calls seen before latency is trusted to shrink the limit
+    private static final int BASELINE_MIN_SAMPLES = 10;
+
+    private static final Pattern DURATION_PART = Pattern.compile("(\\d+(?:\\.\\d+)?)(ms|h|m|s)");
+
+    private final String provider;
+    private final Settings settings;
+    private final TokenBucket requests;
+    private final TokenBucket tokens;
+    // Microseconds per requested output token; long generations are slow, not congested
+    private final LatencyWindow latencyPerToken = new LatencyWindow(BASELINE_WINDOW);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+
+    // Guarded by lock
+    private double limit;
+    private int inFlight;
+    private long blockedUntil;
+
+    ProviderAdmission(String provider, Settings settings) {
+        this.provider = provider;
+        this.settings = settings;
+        this.requests = settings.requestsPerMinute() > 0 ? new TokenBucket(settings.requestsPerMinute()) : null;
+        this.tokens = settings.tokensPerMinute() > 0 ? new TokenBucket(settings.tokensPerMinute()) : null;
+        this.limit = Math.max(settings.minLimit(), Math.min(settings.initialLimit(), settings.maxLimit()));
+        this.blockedUntil = System.nanoTime();
+    }
+
+    /**
+     * Waits until the request may be sent, at most {@code timeoutMs}.
+     *
+     * @return the admission time, to be passed back to {@link #release}
+     * @throws LlmRateLimitedException when it cannot be admitted in time
+     */
+    long acquire(int estimatedTokens, long timeoutMs) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        lock.lock();
+        try {
+            while (true) {
+                long now = System.nanoTime();
+                long wait;
+                if (blockedUntil - now > 0) {
+                    wait = blockedUntil - now;
+                } else if (inFlight >= (int) limit) {
+                    wait = -1; // until a running call finishes
+                } else {
+                    wait = Math.max(waitNanos(requests, 1, now), waitNanos(tokens, estimatedTokens, now));
+                    if (wait == 0) {
+                        take(requests, 1);
+                        take(tokens, estimatedTokens);
+                        inFlight++;
+                        return now;
+                    }
+                }
+
+                long remaining = deadline - now;
+                if (remaining <= 0 || wait > remaining) {
+                    throw new LlmRateLimitedException(provider,
+                            Duration.ofNanos(wait > 0 ? wait : 0), "no capacity (limit " + (int) limit + ")");
+                }
+                changed.awaitNanos(wait > 0 ? wait : remaining);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records how an admitted call ended; {@code response} is null when no
+     * HTTP response was received. {@code maxTokens} is the completion cap the
+     * call was sent with.
+     */
+    void release(long admittedAt, int maxTokens, HttpResponse<?> response, Throwable error) {
+        long now = System.nanoTime();
+        long latencyMicros = TimeUnit.NANOSECONDS.toMicros(now - admittedAt) / Math.max(1, maxTokens);
+
+        lock.lock();
+        try {
+            inFlight--;
+            if (response != null) {
+                applyHeaders(response.statusCode(), response.headers(), now);
+            }
+
+            if (isOverload(response, error)) {
+                limit = Math.max(settings.minLimit(), limit * settings.backoffRatio());
+            } else if (response != null && response.statusCode() / 100 == 2) {
+                latencyPerToken.record(latencyMicros);
+                long baseline = latencyPerToken.percentile(50);
+                if (latencyPerToken.count() >= BASELINE_MIN_SAMPLES
+                        && latencyMicros > baseline * settings.latencyTolerance()) {
+                    limit = Math.max(settings.minLimit(), limit * LATENCY_BACKOFF);
+                } else {
+                    limit = Math.min(settings.maxLimit(), limit + 1 / limit);
+                }
+            }
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // True while the provider told us to back off; the router prefers others meanwhile
+    boolean isThrottled() {
+        lock.lock();
+        try {
+            return blockedUntil - System.nanoTime() > 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int limit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void applyHeaders(int status, HttpHeaders headers, long now) {
+        long remainingRequests = headers.firstValueAsLong("x-ratelimit-remaining-requests").orElse(-1);
+        long remainingTokens = headers.firstValueAsLong("x-ratelimit-remaining-tokens").orElse(-1);
+        if (requests != null && remainingRequests >= 0) {
+            requests.clampTo(remainingRequests, now);
+        }
+        if (tokens != null && remainingTokens >= 0) {
+            tokens.clampTo(remainingTokens, now);
+        }
+
+        Duration backOff = Duration.ZERO;
+        if (remainingRequests == 0) {
+            backOff = max(backOff, parseDuration(headers.firstValue("x-ratelimit-reset-requests").orElse(null)));
+        }
+        if (remainingTokens == 0) {
+            backOff = max(backOff, parseDuration(headers.firstValue("x-ratelimit-reset-tokens").orElse(null)));
+        }
+        if (status == 429 || status == 503) {
+            Duration retryAfter = retryAfter(headers.firstValue("Retry-After").orElse(null));
+            backOff = max(backOff, retryAfter != null ? retryAfter : Duration.ofMillis(settings.defaultRetryAfterMs()));
+        }
+        if (!backOff.isZero()) {
+            blockedUntil = Math.max(blockedUntil, now + backOff.toNanos());
+        }
+    }
+
+    private static boolean isOverload(HttpResponse<?> response, Throwable error) {
+        if (response != null) {
+            return response.statusCode() == 429 || response.statusCode() == 503;
+        }
+        return error instanceof HttpTimeoutException;
+    }
+
+    // Retry-After is either delta-seconds or an HTTP date
+    static Duration retryAfter(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            try {
+                Duration until = Duration.between(ZonedDateTime.now(),
+                        ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME));
+                return until.isNegative() ? Duration.ZERO : until;
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+
+    // Reset headers look like "2m59.56s", "7.66s" or "120ms"
+    static Duration parseDuration(String value) {
+        if (value == null) {
+            return Duration.ZERO;
+        }
+        Matcher matcher = DURATION_PART.matcher(value);
+        double millis = 0;
+        while (matcher.find()) {
+            double amount = Double.parseDouble(matcher.group(1));
+            millis += switch (matcher.group(2)) {
+                case "h" -> amount * 3_600_000;
+                case "m" -> amount * 60_000;
+                case "s" -> amount * 1_000;
+                default -> amount;
+            };
+        }
+        return Duration.ofMillis((long) Math.ceil(millis));
+    }
+
+    private static Duration max(Duration a, Duration b) {
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+
+    private static long waitNanos(TokenBucket bucket, int amount, long now) {
+        return bucket == null ? 0 : bucket.waitNanos(amount, now);
+    }
+
+    private static void take(TokenBucket bucket, int amount) {
+        if (bucket != null) {
+            bucket.take(amount);
+        }
+    }
+
+    /**
+     * Per-minute quota refilled continuously. A request larger than the whole
+     * bucket waits for a full bucket and leaves it in debt.
+     */
+    private static final class TokenBucket {
+
+        private final double capacity;
+        private final double perNano;
+        private double available;
+        private long refilledAt;
+
+        TokenBucket(int perMinute) {
+            this.capacity = perMinute;
+            this.perNano = perMinute / (double) TimeUnit.MINUTES.toNanos(1);
+            this.available = perMinute;
+            this.refilledAt = System.nanoTime();
+        }
+
+        long waitNanos(int amount, long now) {
+            refill(now);
+            double needed = Math.min(amount, capacity) - available;
+            return needed <= 0 ? 0 : (long) Math.ceil(needed / perNano);
+        }
+
+        void take(int amount) {
+            available -= amount;
+        }
+
+        // The provider's own count wins when it is lower than ours
+        void clampTo(long remaining, long now) {
+            refill(now);
+            available = Math.min(available, remaining);
+        }
+
+        private void refill(long now) {
+            available = Math.min(capacity, available + (now - refilledAt) * perNano);
+            refilledAt = now;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.keeplynk.ai.llm;
+
+/**
+ * Health of one provider as seen by {@link LlmRouter}: a circuit breaker plus
+ * exponentially weighted latency and error rate, folded into a routing score.
+ *
+ * <p>The breaker opens after {@code failureThreshold} consecutive failures, or
+ * once the error rate passes {@code errorRateThreshold} over at least
+ * {@code minCalls} calls. After {@code openMs} a single probe is let through
+ * (half-open); its outcome closes or re-opens the breaker.
+ */
+class ProviderHealth {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    record Settings(
+        double alpha,
+        long initialLatencyMs,
+        double errorPenalty,
+        int failureThreshold,
+        double errorRateThreshold,
+        int minCalls,
+        long openMs
+    ) {
+    }
+
+    private static final int WINDOW_SIZE = 256;
+
+    private final Settings settings;
+    private final LatencyWindow latencies = new LatencyWindow(WINDOW_SIZE);
+
+    // Guarded by this
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean probing;
+    private double latencyMs;
+    private double errorRate;
+    private int calls;
+    private int consecutiveFailures;
+
+    ProviderHealth(Settings settings) {
+        this.settings = settings;
+        this.latencyMs = settings.initialLatencyMs();
+    }
+
+    /**
+     * Claims a slot for one call. Always granted while closed; while open only
+     * the single probe after the cool-down is granted.
+     */
+    synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (!coolDownElapsed()) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probing = true;
+                return true;
+            default:
+                if (probing) {
+                    return false;
+                }
+                probing = true;
+                return true;
+        }
+    }
+
+    synchronized void onSuccess(long elapsedMs) {
+        latencyMs = settings.alpha() * elapsedMs + (1 - settings.alpha()) * latencyMs;
+        latencies.record(elapsedMs);
+        onSuccess();
+    }
+
+    // Success without a comparable latency, e.g. a stream the caller cut short
+    synchronized void onSuccess() {
+        errorRate = (1 - settings.alpha()) * errorRate;
+        calls++;
+        consecutiveFailures = 0;
+
+        if (state != State.CLOSED) {
+            state = State.CLOSED;
+            probing = false;
+            errorRate = 0;
+            calls = 0;
+        }
+    }
+
+    synchronized void onFailure() {
+        errorRate = settings.alpha() + (1 - settings.alpha()) * errorRate;
+        calls++;
+        consecutiveFailures++;
+
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (state == State.CLOSED
+                && (consecutiveFailures >= settings.failureThreshold()
+                    || calls >= settings.minCalls() && errorRate >= settings.errorRateThreshold())) {
+            open();
+        }
+    }
+
+    // Cancelled (lost hedge, caller gave up) or rate-limited: says nothing about the provider
+    synchronized void onInconclusive() {
+        if (state == State.HALF_OPEN) {
+            probing = false;
+        }
+    }
+
+    /**
+     * Lower is better: EWMA latency inflated by the error rate. A provider
+     * whose breaker is open and still cooling down is never picked.
+     */
+    synchronized double score() {
+        if (state == State.OPEN && !coolDownElapsed()) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return latencyMs * (1 + settings.errorPenalty() * errorRate);
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    synchronized double latencyMs() {
+        return latencyMs;
+    }
+
+    synchronized double errorRate() {
+        return errorRate;
+    }
+
+    LatencyWindow latencies() {
+        return latencies;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        probing = false;
+    }
+
+    private boolean coolDownElapsed() {
+        return System.nanoTime() - openedAt >= settings.openMs() * 1_000_000L;
+    }
+}
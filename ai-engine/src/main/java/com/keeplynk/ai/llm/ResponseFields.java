@@ -0,0 +1,100 @@
+package com.keeplynk.ai.llm;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Pulls one text value out of a provider response with the streaming parser,
+ * following a path of property names and array indexes such as
+ * {@code "choices", 0, "message", "content"}. Everything off the path is
+ * skipped token by token; no tree or map is built.
+ */
+final class ResponseFields {
+
+    private ResponseFields() {
+    }
+
+    /**
+     * @throws LlmResponseFormatException when the body is not valid JSON or
+     *         the path does not lead to a value
+     */
+    static String require(String provider, ObjectMapper objectMapper, byte[] json, Object... path) {
+        String value;
+        try (JsonParser parser = objectMapper.createParser(json)) {
+            value = find(parser, path);
+        } catch (JacksonException e) {
+            throw new LlmResponseFormatException(provider, "invalid JSON: " + e.getOriginalMessage(), e);
+        }
+        if (value == null) {
+            throw new LlmResponseFormatException(provider, "response has no " + describe(path));
+        }
+        return value;
+    }
+
+    /**
+     * @return the value at {@code path}, or null when it is absent or JSON null
+     * @throws LlmResponseFormatException when the text is not valid JSON
+     */
+    static String find(String provider, ObjectMapper objectMapper, String json, Object... path) {
+        try (JsonParser parser = objectMapper.createParser(json)) {
+            return find(parser, path);
+        } catch (JacksonException e) {
+            throw new LlmResponseFormatException(provider, "invalid JSON: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    private static String find(JsonParser parser, Object[] path) {
+        JsonToken token = parser.nextToken();
+        for (Object step : path) {
+            boolean found = step instanceof Integer index
+                    ? token == JsonToken.START_ARRAY && seekIndex(parser, index)
+                    : token == JsonToken.START_OBJECT && seekProperty(parser, (String) step);
+            if (!found) {
+                return null;
+            }
+            token = parser.currentToken();
+        }
+        if (token == null || !token.isScalarValue() || token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        return parser.getValueAsString();
+    }
+
+    // On success the parser is positioned on the property's value
+    private static boolean seekProperty(JsonParser parser, String property) {
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_OBJECT && token != null) {
+            String name = parser.currentName();
+            parser.nextToken();
+            if (property.equals(name)) {
+                return true;
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    // On success the parser is positioned on the element
+    private static boolean seekIndex(JsonParser parser, int index) {
+        JsonToken token;
+        for (int i = 0; (token = parser.nextToken()) != JsonToken.END_ARRAY && token != null; i++) {
+            if (i == index) {
+                return true;
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    private static String describe(Object[] path) {
+        return Arrays.stream(path)
+                .map(step -> step instanceof Integer ? "[" + step + "]" : "." + step)
+                .collect(Collectors.joining())
+                .replaceFirst("^\\.", "");
+    }
+}
@@ -0,0 +1,12 @@
+package com.keeplynk.ai.llm;
+
+/**
+ * Receives a streamed completion chunk by chunk, on the thread reading the
+ * provider response. Returning false ends the stream early: the provider call
+ * is cancelled and the generation completes with the text received so far.
+ */
+@FunctionalInterface
+public interface TokenSink {
+
+    boolean accept(String chunk);
+}
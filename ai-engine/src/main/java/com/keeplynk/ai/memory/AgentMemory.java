@@ -1,23 +1,35 @@
 package com.keeplynk.ai.memory;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 
 @Document(collection = "agent_memory")
+// Tenant first, so the collection can be sharded on {tenantId, type, value}
+@CompoundIndexes({
+    @CompoundIndex(name = "tenant_type_value", def = "{'tenantId': 1, 'type': 1, 'value': 1}", unique = true),
+    @CompoundIndex(name = "tenant_type_aliases", def = "{'tenantId': 1, 'type': 1, 'aliases': 1}")
+})
 public class AgentMemory {
 
     @Id
     private String id;
 
+    private String tenantId;    // owning user; null for the shared vocabulary
     private String type;        // TAG
     private String value;       // canonical tag
     private List<String> aliases;
 
     private int usageCount;
 
+    // TAG only: how often this tag was saved under each category
+    private Map<String, Integer> categoryCounts;
+
     private Instant createdAt;
     private Instant lastUsedAt;
 	public String getId() {
@@ -26,6 +38,12 @@ public class AgentMemory {
 	public void setId(String id) {
 		this.id = id;
 	}
+	public String getTenantId() {
+		return tenantId;
+	}
+	public void setTenantId(String tenantId) {
+		this.tenantId = tenantId;
+	}
 	public String getType() {
 		return type;
 	}
@@ -50,6 +68,12 @@ public class AgentMemory {
 	public void setUsageCount(int usageCount) {
 		this.usageCount = usageCount;
 	}
+	public Map<String, Integer> getCategoryCounts() {
+		return categoryCounts;
+	}
+	public void setCategoryCounts(Map<String, Integer> categoryCounts) {
+		this.categoryCounts = categoryCounts;
+	}
 	public Instant getCreatedAt() {
 		return createdAt;
 	}
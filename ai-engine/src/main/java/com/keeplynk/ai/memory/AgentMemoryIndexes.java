@@ -0,0 +1,128 @@
+package com.keeplynk.ai.memory;
+
+import jakarta.annotation.PostConstruct;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Creates the {@link AgentMemory} indexes when
+ * {@code spring.data.mongodb.auto-index-creation} is set.
+ * {@link com.keeplynk.ai.config.MongoConfig} turns Spring Data's own index
+ * creation off, because the unique (tenantId, type, value) index cannot be
+ * built over the duplicates the old find-then-save resolution left behind.
+ * Those are merged into the oldest entry of each group first, summing usage
+ * and category counts and keeping every alias.
+ */
+@Component
+public class AgentMemoryIndexes {
+
+    private static final Logger log = LoggerFactory.getLogger(AgentMemoryIndexes.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${spring.data.mongodb.auto-index-creation:false}")
+    private boolean enabled;
+
+    public AgentMemoryIndexes(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @PostConstruct
+    void create() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int merged = mergeDuplicates();
+            if (merged > 0) {
+                log.warn("Merged {} duplicate agent_memory entries before indexing", merged);
+            }
+            IndexOperations indexes = mongoTemplate.indexOps(AgentMemory.class);
+            new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext())
+                    .resolveIndexFor(AgentMemory.class)
+                    .forEach(indexes::createIndex);
+        } catch (RuntimeException e) {
+            // Resolution still works without them, only slower and without the uniqueness guarantee
+            log.error("Could not create agent_memory indexes, continuing without them", e);
+        }
+    }
+
+    // Returns the number of entries removed
+    int mergeDuplicates() {
+        Aggregation duplicates = Aggregation.newAggregation(
+                Aggregation.group("tenantId", "type", "value").push("_id").as("ids").count().as("count"),
+                Aggregation.match(Criteria.where("count").gt(1))
+        ).withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+
+        int removed = 0;
+        Set<String> categoryTenants = new LinkedHashSet<>();
+        for (Document group : mongoTemplate.aggregate(duplicates, AgentMemory.class, Document.class)) {
+            List<AgentMemory> entries = new ArrayList<>(mongoTemplate.find(
+                    Query.query(Criteria.where("_id").in(group.getList("ids", Object.class))), AgentMemory.class));
+            if (entries.size() < 2) {
+                continue;
+            }
+            entries.sort(Comparator.comparing(AgentMemory::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder())));
+
+            AgentMemory kept = entries.get(0);
+            List<AgentMemory> rest = entries.subList(1, entries.size());
+            merge(kept, rest);
+            mongoTemplate.save(kept);
+            mongoTemplate.remove(Query.query(Criteria.where("_id").in(rest.stream().map(AgentMemory::getId).toList())),
+                    AgentMemory.class);
+            removed += rest.size();
+
+            if ("CATEGORY".equals(kept.getType())) {
+                categoryTenants.add(kept.getTenantId() == null ? "CATEGORY" : "CATEGORY:" + kept.getTenantId());
+            }
+        }
+
+        // Reseeded from the merged categories on the next create
+        if (!categoryTenants.isEmpty()) {
+            mongoTemplate.remove(Query.query(Criteria.where("_id").in(categoryTenants)), MemoryCounter.class);
+        }
+        return removed;
+    }
+
+    private static void merge(AgentMemory kept, List<AgentMemory> rest) {
+        Set<String> aliases = new LinkedHashSet<>(kept.getAliases() != null ? kept.getAliases() : List.of());
+        Map<String, Integer> categoryCounts =
+                new HashMap<>(kept.getCategoryCounts() != null ? kept.getCategoryCounts() : Map.of());
+        for (AgentMemory entry : rest) {
+            if (entry.getAliases() != null) {
+                aliases.addAll(entry.getAliases());
+            }
+            if (entry.getCategoryCounts() != null) {
+                entry.getCategoryCounts().forEach((category, count) -> categoryCounts.merge(category, count, Integer::sum));
+            }
+            kept.setUsageCount(kept.getUsageCount() + entry.getUsageCount());
+            if (entry.getLastUsedAt() != null
+                    && (kept.getLastUsedAt() == null || entry.getLastUsedAt().isAfter(kept.getLastUsedAt()))) {
+                kept.setLastUsedAt(entry.getLastUsedAt());
+            }
+        }
+        kept.setAliases(new ArrayList<>(aliases));
+        if (!categoryCounts.isEmpty()) {
+            kept.setCategoryCounts(categoryCounts);
+        }
+    }
+}
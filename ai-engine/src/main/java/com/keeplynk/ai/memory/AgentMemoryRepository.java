@@ -1,5 +1,7 @@
 package com.keeplynk.ai.memory;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.mongodb.repository.MongoRepository;
@@ -17,5 +19,24 @@ String type,
 String alias
 );
 
+List<AgentMemory> findByTypeAndValueIn(
+String type,
+Collection<String> values
+);
+
 long countByType(String type);
+
+// A null tenant matches the shared vocabulary
+List<AgentMemory> findByTenantIdAndType(
+String tenantId,
+String type
+);
+
+List<AgentMemory> findByTenantIdAndTypeAndValueIn(
+String tenantId,
+String type,
+Collection<String> values
+);
+
+long countByTenantIdAndType(String tenantId, String type);
 }
\ No newline at end of file
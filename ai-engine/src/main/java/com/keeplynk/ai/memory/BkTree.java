@@ -0,0 +1,143 @@
+package com.keeplynk.ai.memory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Burkhard-Keller tree over strings by Levenshtein distance. Each child hangs
+ * off its parent under their distance, so by the triangle inequality a search
+ * within {@code maxDistance} of a query at distance {@code d} from a node only
+ * visits the children keyed {@code d - maxDistance .. d + maxDistance}.
+ * Insert-only; searches run concurrently, inserts one at a time.
+ */
+final class BkTree {
+
+    record Match(String term, int distance) {
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock
+    private Node root;
+    private int size;
+
+    /**
+     * @return false when {@code term} was already in the tree
+     */
+    boolean add(String term) {
+        lock.writeLock().lock();
+        try {
+            if (root == null) {
+                root = new Node(term);
+                size++;
+                return true;
+            }
+            int[] previous = new int[term.length() + 1];
+            int[] current = new int[term.length() + 1];
+            Node node = root;
+            while (true) {
+                int distance = distance(term, node.term, previous, current);
+                if (distance == 0) {
+                    return false;
+                }
+                Node child = node.children.get(distance);
+                if (child == null) {
+                    node.children.put(distance, new Node(term));
+                    size++;
+                    return true;
+                }
+                node = child;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The closest term within {@code maxDistance} of {@code query}, ties going
+     * to the lexicographically smaller one; null when there is none.
+     */
+    Match closest(String query, int maxDistance) {
+        return closest(query, maxDistance, term -> true);
+    }
+
+    /**
+     * As {@link #closest(String, int)}, over the terms {@code accept} allows.
+     */
+    Match closest(String query, int maxDistance, Predicate<String> accept) {
+        lock.readLock().lock();
+        try {
+            if (root == null) {
+                return null;
+            }
+            int[] previous = new int[query.length() + 1];
+            int[] current = new int[query.length() + 1];
+            return closest(root, query, maxDistance, accept, previous, current, null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static Match closest(Node node, String query, int maxDistance, Predicate<String> accept,
+            int[] previous, int[] current, Match best) {
+        int distance = distance(query, node.term, previous, current);
+        if (distance <= maxDistance && accept.test(node.term) && (best == null || distance < best.distance()
+                || distance == best.distance() && node.term.compareTo(best.term()) < 0)) {
+            best = new Match(node.term, distance);
+        }
+        // Nothing beyond the best found so far can beat it
+        int radius = best == null ? maxDistance : best.distance();
+        for (Map.Entry<Integer, Node> child : node.children.entrySet()) {
+            int key = child.getKey();
+            if (key >= distance - radius && key <= distance + radius) {
+                best = closest(child.getValue(), query, maxDistance, accept, previous, current, best);
+                radius = best == null ? maxDistance : best.distance();
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Levenshtein distance with two rows over {@code query}; both rows must
+     * hold {@code query.length() + 1} entries.
+     */
+    static int distance(String query, String term, int[] previous, int[] current) {
+        int n = query.length();
+        for (int j = 0; j <= n; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= term.length(); i++) {
+            current[0] = i;
+            char c = term.charAt(i - 1);
+            for (int j = 1; j <= n; j++) {
+                int substitute = previous[j - 1] + (query.charAt(j - 1) == c ? 0 : 1);
+                current[j] = Math.min(substitute, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[n];
+    }
+
+    private static final class Node {
+
+        private final String term;
+        private final Map<Integer, Node> children = new HashMap<>(4);
+
+        Node(String term) {
+            this.term = term;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.keeplynk.ai.memory;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * {@link TagResolver} over the blocking {@link MemoryService}; each tag that
+ * needs Mongo holds an executor thread for its round trip.
+ */
+@Component
+@ConditionalOnProperty(name = "memory.mode", havingValue = "blocking", matchIfMissing = true)
+public class BlockingTagResolver implements TagResolver {
+
+    private final MemoryService memoryService;
+
+    public BlockingTagResolver(MemoryService memoryService) {
+        this.memoryService = memoryService;
+    }
+
+    @Override
+    public CompletableFuture<String> resolve(String userId, String rawTag, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> memoryService.reuseOrCreate(userId, rawTag), executor);
+    }
+}
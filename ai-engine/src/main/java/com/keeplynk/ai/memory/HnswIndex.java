@@ -0,0 +1,229 @@
+package com.keeplynk.ai.memory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Hierarchical navigable small world graph for approximate nearest-neighbour
+ * search by cosine similarity over unit vectors. Each node links to its
+ * {@code m} nearest neighbours per layer ({@code 2m} on the bottom layer);
+ * a search descends greedily through the sparse upper layers and runs a
+ * best-first search of width {@code ef} on the bottom one. Insert-only;
+ * searches run concurrently, inserts one at a time.
+ */
+final class HnswIndex {
+
+    record Match(String key, float similarity) {
+    }
+
+    private static final int[] NO_LINKS = new int[0];
+    private static final Comparator<Candidate> NEAREST_FIRST = Comparator.comparingDouble(Candidate::distance);
+
+    private final int m;
+    private final int maxLinksBottom;
+    private final int efConstruction;
+    private final double levelFactor;
+    private final SplittableRandom random = new SplittableRandom(42);
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock
+    private final List<Node> nodes = new ArrayList<>();
+    private final Map<String, Integer> ids = new HashMap<>();
+    private int entryPoint = -1;
+    private int topLevel = -1;
+
+    HnswIndex(int m, int efConstruction) {
+        this.m = m;
+        this.maxLinksBottom = 2 * m;
+        this.efConstruction = efConstruction;
+        this.levelFactor = 1 / Math.log(m);
+    }
+
+    /**
+     * @return false when {@code key} was already indexed
+     */
+    boolean add(String key, float[] vector) {
+        lock.writeLock().lock();
+        try {
+            if (ids.containsKey(key)) {
+                return false;
+            }
+            int level = (int) (-Math.log(1 - random.nextDouble()) * levelFactor);
+            int id = nodes.size();
+            Node node = new Node(key, vector, level);
+            nodes.add(node);
+            ids.put(key, id);
+
+            if (entryPoint < 0) {
+                entryPoint = id;
+                topLevel = level;
+                return true;
+            }
+
+            int current = entryPoint;
+            for (int layer = topLevel; layer > level; layer--) {
+                current = greedy(vector, current, layer);
+            }
+            for (int layer = Math.min(level, topLevel); layer >= 0; layer--) {
+                List<Candidate> nearest = searchLayer(vector, current, efConstruction, layer);
+                int[] links = new int[Math.min(m, nearest.size())];
+                for (int i = 0; i < links.length; i++) {
+                    links[i] = nearest.get(i).id();
+                }
+                node.links[layer] = links;
+                for (int neighbour : links) {
+                    connect(neighbour, id, layer);
+                }
+                current = nearest.get(0).id();
+            }
+
+            if (level > topLevel) {
+                topLevel = level;
+                entryPoint = id;
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Up to k matches, most similar first
+    List<Match> search(float[] query, int k, int ef) {
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0) {
+                return List.of();
+            }
+            int current = entryPoint;
+            for (int layer = topLevel; layer > 0; layer--) {
+                current = greedy(query, current, layer);
+            }
+            List<Candidate> nearest = searchLayer(query, current, Math.max(ef, k), 0);
+            List<Match> matches = new ArrayList<>(Math.min(k, nearest.size()));
+            for (int i = 0; i < k && i < nearest.size(); i++) {
+                Candidate candidate = nearest.get(i);
+                matches.add(new Match(nodes.get(candidate.id()).key, 1 - candidate.distance()));
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return nodes.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Walks to the closest node on one layer
+    private int greedy(float[] query, int start, int layer) {
+        int current = start;
+        float best = distance(query, current);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int neighbour : nodes.get(current).links(layer)) {
+                float d = distance(query, neighbour);
+                if (d < best) {
+                    best = d;
+                    current = neighbour;
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    // Best-first search keeping the ef nearest nodes found; returned nearest first
+    private List<Candidate> searchLayer(float[] query, int start, int ef, int layer) {
+        BitSet visited = new BitSet(nodes.size());
+        PriorityQueue<Candidate> toVisit = new PriorityQueue<>(NEAREST_FIRST);
+        PriorityQueue<Candidate> nearest = new PriorityQueue<>(NEAREST_FIRST.reversed());
+
+        Candidate first = new Candidate(start, distance(query, start));
+        visited.set(start);
+        toVisit.add(first);
+        nearest.add(first);
+
+        while (!toVisit.isEmpty()) {
+            Candidate candidate = toVisit.poll();
+            if (nearest.size() >= ef && candidate.distance() > nearest.peek().distance()) {
+                break;
+            }
+            for (int neighbour : nodes.get(candidate.id()).links(layer)) {
+                if (visited.get(neighbour)) {
+                    continue;
+                }
+                visited.set(neighbour);
+                float d = distance(query, neighbour);
+                if (nearest.size() < ef || d < nearest.peek().distance()) {
+                    Candidate next = new Candidate(neighbour, d);
+                    toVisit.add(next);
+                    nearest.add(next);
+                    if (nearest.size() > ef) {
+                        nearest.poll();
+                    }
+                }
+            }
+        }
+
+        List<Candidate> result = new ArrayList<>(nearest);
+        result.sort(NEAREST_FIRST);
+        return result;
+    }
+
+    // Adds a back link, keeping only the closest ones once the node is full
+    private void connect(int from, int to, int layer) {
+        Node node = nodes.get(from);
+        int[] links = Arrays.copyOf(node.links(layer), node.links(layer).length + 1);
+        links[links.length - 1] = to;
+
+        int max = layer == 0 ? maxLinksBottom : m;
+        if (links.length > max) {
+            links = Arrays.stream(links)
+                    .boxed()
+                    .sorted(Comparator.comparingDouble(neighbour -> distance(node.vector, neighbour)))
+                    .limit(max)
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        }
+        node.links[layer] = links;
+    }
+
+    private float distance(float[] query, int id) {
+        return 1 - TagEmbedding.dot(query, nodes.get(id).vector);
+    }
+
+    private record Candidate(int id, float distance) {
+    }
+
+    private static final class Node {
+
+        private final String key;
+        private final float[] vector;
+        private final int[][] links;
+
+        Node(String key, float[] vector, int level) {
+            this.key = key;
+            this.vector = vector;
+            this.links = new int[level + 1][];
+            Arrays.fill(links, NO_LINKS);
+        }
+
+        int[] links(int layer) {
+            return layer < links.length ? links[layer] : NO_LINKS;
+        }
+    }
+}
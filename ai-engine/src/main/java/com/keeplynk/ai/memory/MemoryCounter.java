@@ -0,0 +1,30 @@
+package com.keeplynk.ai.memory;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Shared counters for {@code agent_memory}, updated atomically so limits
+ * hold across concurrent requests and instances. The id names what is
+ * counted, e.g. {@code CATEGORY} or {@code CATEGORY:<tenant>}.
+ */
+@Document(collection = "agent_memory_counters")
+public class MemoryCounter {
+
+    @Id
+    private String id;
+
+    private long count;
+	public String getId() {
+		return id;
+	}
+	public void setId(String id) {
+		this.id = id;
+	}
+	public long getCount() {
+		return count;
+	}
+	public void setCount(long count) {
+		this.count = count;
+	}
+}
@@ -1,101 +1,260 @@
 package com.keeplynk.ai.memory;
 
 import java.time.Instant;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import com.mongodb.client.result.UpdateResult;
+
 @Service
 public class MemoryService {
 
+    private static final int MAX_CATEGORIES = 12;
+    static final FindAndModifyOptions UPSERT = FindAndModifyOptions.options().upsert(true).returnNew(true);
+
     private final AgentMemoryRepository repo;
+    private final MongoTemplate mongoTemplate;
+    private final VocabularyCache vocabulary;
+    private final UsageCounterBuffer usage;
+
+    // Category inference from tag history: minimum observations and share of the winner
+    @Value("${memory.category-inference.min-support:3}")
+    private int categoryMinSupport;
 
-    public MemoryService(AgentMemoryRepository repo) {
+    @Value("${memory.category-inference.min-share:0.6}")
+    private double categoryMinShare;
+
+    public MemoryService(AgentMemoryRepository repo, MongoTemplate mongoTemplate,
+            VocabularyCache vocabulary, UsageCounterBuffer usage) {
         this.repo = repo;
+        this.mongoTemplate = mongoTemplate;
+        this.vocabulary = vocabulary;
+        this.usage = usage;
     }
 
-    public String reuseOrCreate(String rawTag) {
+    /**
+     * Resolves a tag in the user's vocabulary, creating it there when new.
+     *
+     * @param userId owning user; null or blank for the shared vocabulary
+     */
+    public String reuseOrCreate(String userId, String rawTag) {
 
+        String tenant = tenant(userId);
         String normalized = TagNormalizer.normalize(rawTag);
 
-        // 1️⃣ Exact match
-        Optional<AgentMemory> exact =
-            repo.findByTypeAndValue("TAG", normalized);
+        String cached = reuseCached(tenant, normalized);
+        if (cached != null) {
+            return cached;
+        }
 
-        if (exact.isPresent()) {
-            increment(exact.get());
-            return exact.get().getValue();
+        // 2️⃣ Match by value or alias, or create: one atomic round trip
+        String canonical = canonicalTag(tenant, normalized);
+        Query query = byValueOrAlias(tenant, "TAG", normalized, canonical);
+        Update update = created(rawTag.toLowerCase(), canonical);
+        AgentMemory tag;
+        try {
+            tag = mongoTemplate.findAndModify(query, update, UPSERT, AgentMemory.class);
+        } catch (DuplicateKeyException e) {
+            // Created concurrently; now it matches
+            tag = mongoTemplate.findAndModify(query, update, UPSERT, AgentMemory.class);
         }
+        rememberTag(tenant, normalized, tag.getValue());
+        return tag.getValue();
+    }
 
-        // 2️⃣ Alias match
-        Optional<AgentMemory> alias =
-            repo.findByTypeAndAliasesContaining("TAG", normalized);
+    /**
+     * The step of {@link #reuseOrCreate} that needs no round trip: the tag,
+     * or null when the user's vocabulary does not know it (yet) and Mongo has
+     * to match or create it. New entries are created right away, so
+     * {@link #recordCategoryForTags} finds them; only uses of existing ones
+     * are written behind. Shared with {@link ReactiveMemoryService}.
+     */
+    String reuseCached(String tenant, String normalized) {
 
-        if (alias.isPresent()) {
-            increment(alias.get());
-            return alias.get().getValue();
+        // 1️⃣ Known spelling or a close variant, resolved in memory; the use is written behind
+        Optional<String> cached = vocabulary.tag(tenant, normalized);
+        if (cached.isPresent()) {
+            usage.recordUse(tenant, "TAG", cached.get(), normalized);
+            vocabulary.addTag(tenant, normalized, cached.get());
+            return cached.get();
         }
+        return null;
+    }
 
-        // 3️⃣ Create new
-        AgentMemory mem = new AgentMemory();
-        mem.setType("TAG");
-        mem.setValue(normalized);
-        mem.setAliases(List.of(rawTag.toLowerCase()));
-        mem.setUsageCount(1);
-        mem.setCreatedAt(Instant.now());
-        mem.setLastUsedAt(Instant.now());
+    // A tag new to the user takes the shared vocabulary's spelling, so users converge on the same tags
+    String canonicalTag(String tenant, String normalized) {
+        return tenant == null ? normalized : vocabulary.tag(null, normalized).orElse(normalized);
+    }
 
-        repo.save(mem);
-        return normalized;
+    void rememberTag(String tenant, String spelling, String tag) {
+        vocabulary.addTag(tenant, spelling, tag);
+        if (!spelling.equals(tag)) {
+            vocabulary.addTag(tenant, tag, tag);
+        }
     }
     
-    public String reuseOrCreateCategory(String rawCategory) {
+    public String reuseOrCreateCategory(String userId, String rawCategory) {
 
         if (rawCategory == null || rawCategory.isBlank()) {
             return "General";
         }
 
+        String tenant = tenant(userId);
         String normalized = rawCategory.trim();
 
-        Optional<AgentMemory> exact =
-                repo.findByTypeAndValue("CATEGORY", normalized);
-
-        if (exact.isPresent()) {
-            increment(exact.get());
-            return exact.get().getValue();
+        Optional<String> cached = vocabulary.category(tenant, normalized);
+        if (cached.isPresent()) {
+            usage.recordUse(tenant, "CATEGORY", cached.get(), normalized);
+            return cached.get();
         }
 
-        Optional<AgentMemory> alias =
-                repo.findByTypeAndAliasesContaining("CATEGORY", normalized);
+        String canonical = tenant == null ? normalized : vocabulary.category(null, normalized).orElse(normalized);
 
-        if (alias.isPresent()) {
-            increment(alias.get());
-            return alias.get().getValue();
+        // Possibly created by another instance since the vocabulary was loaded
+        AgentMemory existing = mongoTemplate.findAndModify(
+                byValueOrAlias(tenant, "CATEGORY", normalized, canonical), used(rawCategory), AgentMemory.class);
+        if (existing != null) {
+            vocabulary.addCategory(tenant, normalized, existing.getValue());
+            return existing.getValue();
         }
 
-        // ⚠️ Guardrail: limit category creation
-        long categoryCount = repo.countByType("CATEGORY");
-        if (categoryCount >= 12) {
+        // ⚠️ Guardrail: limit category creation, per user
+        if (!reserveCategory(tenant)) {
             return "General";
         }
 
-        AgentMemory mem = new AgentMemory();
-        mem.setType("CATEGORY");
-        mem.setValue(normalized);
-        mem.setAliases(List.of(rawCategory));
-        mem.setUsageCount(1);
-        mem.setCreatedAt(Instant.now());
-        mem.setLastUsedAt(Instant.now());
+        UpdateResult created = mongoTemplate.upsert(
+                byValue(tenant, "CATEGORY", canonical),
+                used(rawCategory).setOnInsert("createdAt", Instant.now()),
+                AgentMemory.class);
+        if (created.getUpsertedId() == null) {
+            // Created concurrently; give the slot back
+            mongoTemplate.updateFirst(categoryCounter(tenant), new Update().inc("count", -1), MemoryCounter.class);
+        }
+
+        vocabulary.addCategory(tenant, normalized, canonical);
+        vocabulary.addCategory(tenant, canonical, canonical);
+        return canonical;
+    }
+
+    /**
+     * Derives a category from how often the given tags were saved under each
+     * category before. Only answers when one category clearly dominates.
+     */
+    public Optional<String> inferCategoryFromTags(String userId, List<String> tags) {
+
+        if (tags == null || tags.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Map<String, Integer> votes = new HashMap<>();
+        for (AgentMemory tag : repo.findByTenantIdAndTypeAndValueIn(tenant(userId), "TAG", tags)) {
+            if (tag.getCategoryCounts() != null) {
+                tag.getCategoryCounts().forEach((category, count) -> votes.merge(category, count, Integer::sum));
+            }
+        }
+
+        int total = votes.values().stream().mapToInt(Integer::intValue).sum();
+        Optional<Map.Entry<String, Integer>> best =
+                votes.entrySet().stream().max(Map.Entry.comparingByValue());
+
+        if (best.isEmpty()
+                || best.get().getValue() < categoryMinSupport
+                || best.get().getValue() < categoryMinShare * total) {
+            return Optional.empty();
+        }
 
-        repo.save(mem);
-        return normalized;
+        return Optional.of(reuseOrCreateCategory(userId, best.get().getKey()));
     }
 
+    /**
+     * Records that a resource with these tags was filed under this category,
+     * feeding {@link #inferCategoryFromTags(String, List)}.
+     */
+    public void recordCategoryForTags(String userId, List<String> tags, String category) {
+
+        // Mongo map keys cannot contain dots or start with '$'
+        if (tags == null || tags.isEmpty() || category == null
+                || category.contains(".") || category.startsWith("$")) {
+            return;
+        }
+
+        Query query = Query.query(Criteria.where("tenantId").is(tenant(userId))
+                .and("type").is("TAG")
+                .and("value").in(tags));
+        mongoTemplate.updateMulti(query, new Update().inc("categoryCounts." + category, 1), AgentMemory.class);
+    }
+
+    /**
+     * Takes one of the user's {@value #MAX_CATEGORIES} category slots, in a
+     * single conditional update so concurrent creates cannot overshoot the cap.
+     */
+    private boolean reserveCategory(String tenant) {
+        if (takeCategorySlot(tenant)) {
+            return true;
+        }
+        if (mongoTemplate.exists(categoryCounter(tenant), MemoryCounter.class)) {
+            return false; // full
+        }
+        // No counter yet (new user, or data from before the counter): start from the categories stored
+        mongoTemplate.upsert(categoryCounter(tenant),
+                new Update().setOnInsert("count", repo.countByTenantIdAndType(tenant, "CATEGORY")),
+                MemoryCounter.class);
+        return takeCategorySlot(tenant);
+    }
+
+    private boolean takeCategorySlot(String tenant) {
+        Query query = categoryCounter(tenant).addCriteria(Criteria.where("count").lt(MAX_CATEGORIES));
+        return mongoTemplate.updateFirst(query, new Update().inc("count", 1), MemoryCounter.class)
+                .getModifiedCount() > 0;
+    }
+
+    // Blank user ids share the global vocabulary
+    static String tenant(String userId) {
+        return userId == null || userId.isBlank() ? null : userId.trim();
+    }
+
+    private static Query categoryCounter(String tenant) {
+        return Query.query(Criteria.where("_id").is(tenant == null ? "CATEGORY" : "CATEGORY:" + tenant));
+    }
+
+    private static Query byValue(String tenant, String type, String value) {
+        return Query.query(Criteria.where("tenantId").is(tenant).and("type").is(type).and("value").is(value));
+    }
+
+    /**
+     * The entry whose value or alias is {@code term}, or whose value is
+     * {@code canonical}. Upserting through it creates {@code canonical}.
+     */
+    static Query byValueOrAlias(String tenant, String type, String term, String canonical) {
+        return Query.query(Criteria.where("tenantId").is(tenant).and("type").is(type).orOperator(
+                Criteria.where("value").is(term),
+                Criteria.where("aliases").is(term),
+                Criteria.where("value").is(canonical)));
+    }
+
+    private static Update used(String alias) {
+        return new Update()
+                .inc("usageCount", 1)
+                .set("lastUsedAt", Instant.now())
+                .addToSet("aliases", alias);
+    }
 
-    private void increment(AgentMemory mem) {
-        mem.setUsageCount(mem.getUsageCount() + 1);
-        mem.setLastUsedAt(Instant.now());
-        repo.save(mem);
+    // A use of the entry, setting up a new one when the query matched none
+    static Update created(String alias, String canonical) {
+        return used(alias)
+                .setOnInsert("value", canonical)
+                .setOnInsert("createdAt", Instant.now());
     }
 }
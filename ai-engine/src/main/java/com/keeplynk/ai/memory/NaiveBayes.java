@@ -0,0 +1,121 @@
+package com.keeplynk.ai.memory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Multinomial naive Bayes over string features with Laplace smoothing,
+ * trained one example at a time. Features never seen in training carry no
+ * evidence and are ignored when predicting. Safe for concurrent use.
+ */
+final class NaiveBayes {
+
+    record Prediction(String label, double probability, int support) {
+    }
+
+    private final int maxFeatures;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock
+    private final Map<String, LabelStats> labels = new HashMap<>();
+    private final Set<String> vocabulary = new HashSet<>();
+    private int examples;
+
+    NaiveBayes(int maxFeatures) {
+        this.maxFeatures = maxFeatures;
+    }
+
+    void learn(Collection<String> features, String label) {
+        lock.writeLock().lock();
+        try {
+            LabelStats stats = labels.computeIfAbsent(label, ignored -> new LabelStats());
+            stats.examples++;
+            examples++;
+            for (String feature : features) {
+                if (!vocabulary.contains(feature)) {
+                    // Once full, new features are dropped rather than growing without bound
+                    if (vocabulary.size() >= maxFeatures) {
+                        continue;
+                    }
+                    vocabulary.add(feature);
+                }
+                stats.counts.merge(feature, 1, Integer::sum);
+                stats.total++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return every label with its posterior probability, most likely first;
+     *         empty when none of the features has been seen before
+     */
+    List<Prediction> predict(Collection<String> features) {
+        lock.readLock().lock();
+        try {
+            List<String> known = features.stream().filter(vocabulary::contains).toList();
+            if (known.isEmpty()) {
+                return List.of();
+            }
+
+            int size = labels.size();
+            String[] names = new String[size];
+            int[] support = new int[size];
+            double[] scores = new double[size];
+            double max = Double.NEGATIVE_INFINITY;
+            int i = 0;
+            for (Map.Entry<String, LabelStats> entry : labels.entrySet()) {
+                LabelStats stats = entry.getValue();
+                double denominator = Math.log(stats.total + vocabulary.size());
+                double score = Math.log((double) stats.examples / examples);
+                for (String feature : known) {
+                    score += Math.log(stats.counts.getOrDefault(feature, 0) + 1) - denominator;
+                }
+                names[i] = entry.getKey();
+                support[i] = stats.examples;
+                scores[i] = score;
+                max = Math.max(max, score);
+                i++;
+            }
+
+            // Log-sum-exp keeps the normalisation from underflowing
+            double sum = 0;
+            for (int j = 0; j < size; j++) {
+                scores[j] = Math.exp(scores[j] - max);
+                sum += scores[j];
+            }
+            List<Prediction> predictions = new ArrayList<>(size);
+            for (int j = 0; j < size; j++) {
+                predictions.add(new Prediction(names[j], scores[j] / sum, support[j]));
+            }
+            predictions.sort(Comparator.comparingDouble(Prediction::probability).reversed());
+            return predictions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int examples() {
+        lock.readLock().lock();
+        try {
+            return examples;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static final class LabelStats {
+
+        private final Map<String, Integer> counts = new HashMap<>();
+        private int examples;
+        private long total;
+    }
+}
@@ -0,0 +1,81 @@
+package com.keeplynk.ai.memory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Tag resolution on the reactive Mongo driver. Resolution that the
+ * vocabulary can answer is shared with {@link MemoryService}; the rest is one
+ * non-blocking findAndModify per tag, with all tags of a request in flight at
+ * once, so a request waits about one round trip rather than one per tag.
+ */
+@Service
+@ConditionalOnProperty(name = "memory.mode", havingValue = "reactive")
+public class ReactiveMemoryService implements TagResolver {
+
+    private final MemoryService memoryService;
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    // Round trips in flight per request
+    @Value("${memory.reactive.concurrency:8}")
+    private int concurrency;
+
+    public ReactiveMemoryService(MemoryService memoryService, ReactiveMongoTemplate mongoTemplate) {
+        this.memoryService = memoryService;
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Same contract as {@link MemoryService#reuseOrCreate}.
+     */
+    public Mono<String> reuseOrCreate(String userId, String rawTag) {
+        return Mono.defer(() -> {
+            String tenant = MemoryService.tenant(userId);
+            String normalized = TagNormalizer.normalize(rawTag);
+
+            String cached = memoryService.reuseCached(tenant, normalized);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+
+            String canonical = memoryService.canonicalTag(tenant, normalized);
+            Query query = MemoryService.byValueOrAlias(tenant, "TAG", normalized, canonical);
+            Update update = MemoryService.created(rawTag.toLowerCase(), canonical);
+            return mongoTemplate.findAndModify(query, update, MemoryService.UPSERT, AgentMemory.class)
+                    // Created concurrently; now it matches
+                    .onErrorResume(DuplicateKeyException.class, e ->
+                            mongoTemplate.findAndModify(query, update, MemoryService.UPSERT, AgentMemory.class))
+                    .map(AgentMemory::getValue)
+                    .doOnNext(tag -> memoryService.rememberTag(tenant, normalized, tag));
+        });
+    }
+
+    // In input order, without duplicates
+    public Flux<String> reuseOrCreateAll(String userId, List<String> rawTags) {
+        return Flux.fromIterable(rawTags)
+                .flatMapSequential(tag -> reuseOrCreate(userId, tag), concurrency)
+                .distinct();
+    }
+
+    @Override
+    public CompletableFuture<String> resolve(String userId, String rawTag, Executor executor) {
+        return reuseOrCreate(userId, rawTag).toFuture();
+    }
+
+    @Override
+    public CompletableFuture<List<String>> resolveAll(String userId, List<String> rawTags, Executor executor) {
+        return reuseOrCreateAll(userId, rawTags).collectList().toFuture();
+    }
+}
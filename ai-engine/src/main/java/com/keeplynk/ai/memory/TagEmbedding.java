@@ -0,0 +1,69 @@
+package com.keeplynk.ai.memory;
+
+/**
+ * Local tag embedding: character bigrams and trigrams of the tag, hashed
+ * with a sign into a fixed-size vector and L2-normalised, so the dot
+ * product of two embeddings is their cosine similarity. Spelling variants
+ * ("java-script", "javascript", "tutorials") land close together; it knows
+ * nothing about meaning, so abbreviations like "js" stay apart.
+ */
+final class TagEmbedding {
+
+    static final int DIMENSIONS = 256;
+
+    private TagEmbedding() {
+    }
+
+    static float[] of(String tag) {
+        // Separators carry no signal: "java-script" and "javascript" embed the same
+        StringBuilder text = new StringBuilder(tag.length() + 2).append('^');
+        for (int i = 0; i < tag.length(); i++) {
+            char c = tag.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                text.append(Character.toLowerCase(c));
+            }
+        }
+        text.append('$');
+
+        float[] vector = new float[DIMENSIONS];
+        for (int n = 2; n <= 3; n++) {
+            for (int i = 0; i + n <= text.length(); i++) {
+                int hash = hash(text, i, n);
+                vector[Math.floorMod(hash, DIMENSIONS)] += hash < 0 ? -1 : 1;
+            }
+        }
+
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        float scale = norm == 0 ? 0 : (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+
+    static float dot(float[] a, float[] b) {
+        float sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    // FNV-1a with a murmur finaliser, so bucket (low bits) and sign (high bit) are independent
+    private static int hash(CharSequence text, int from, int length) {
+        int h = 0x811c9dc5;
+        for (int i = from; i < from + length; i++) {
+            h ^= text.charAt(i);
+            h *= 0x01000193;
+        }
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
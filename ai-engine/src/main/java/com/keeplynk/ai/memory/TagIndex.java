@@ -0,0 +1,113 @@
+package com.keeplynk.ai.memory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Approximate matching of tag spellings. Plural and separator variants
+ * ("tutorials", "ui-ux" for "uiux") are found within
+ * {@code memory.tag-index.max-edits} edits in a {@link BkTree}, and so are
+ * typos in tags of {@code memory.tag-index.typo-min-length} characters or
+ * more; a short tag one letter away is as likely another word ("node",
+ * "code") and is left alone. Failing that,
+ * an {@link HnswIndex} over the {@link TagEmbedding} of every spelling finds
+ * one at least {@code memory.tag-index.similarity} alike.
+ * {@link VocabularyCache} maps the matched spelling to its canonical tag.
+ */
+@Component
+public class TagIndex {
+
+    private final HnswIndex index;
+    private final BkTree spellings = new BkTree();
+
+    @Value("${memory.tag-index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${memory.tag-index.similarity:0.8}")
+    private double minSimilarity;
+
+    // N-gram similarity says little about very short tags ("go", "ml")
+    @Value("${memory.tag-index.min-length:4}")
+    private int minLength;
+
+    // One edit per four characters, up to this many
+    @Value("${memory.tag-index.max-edits:2}")
+    private int maxEdits;
+
+    // Shorter tags only match their plural and separator variants
+    @Value("${memory.tag-index.typo-min-length:8}")
+    private int typoMinLength;
+
+    @Value("${memory.tag-index.ef-search:50}")
+    private int efSearch;
+
+    public TagIndex(
+        @Value("${memory.tag-index.m:16}") int m,
+        @Value("${memory.tag-index.ef-construction:100}") int efConstruction
+    ) {
+        this.index = new HnswIndex(m, efConstruction);
+    }
+
+    /**
+     * @param term a normalized tag
+     * @return the indexed spelling most like {@code term}, if alike enough
+     */
+    public Optional<String> similar(String term) {
+        if (!enabled || term.length() < minLength) {
+            return Optional.empty();
+        }
+        BkTree.Match close = closest(spellings, term);
+        if (close != null) {
+            return Optional.of(close.term());
+        }
+        for (HnswIndex.Match match : index.search(TagEmbedding.of(term), 1, efSearch)) {
+            if (match.similarity() >= minSimilarity) {
+                return Optional.of(match.key());
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * The spelling in {@code tree} that {@code term} is a variant or typo of;
+     * shared with the per-tenant vocabularies in {@link VocabularyCache}.
+     */
+    BkTree.Match closest(BkTree tree, String term) {
+        if (!enabled || term.length() < minLength) {
+            return null;
+        }
+        if (term.length() >= typoMinLength) {
+            return tree.closest(term, Math.min(maxEdits, term.length() / 4));
+        }
+        return tree.closest(term, maxEdits, spelling -> isVariant(term, spelling));
+    }
+
+    // Equal once separators are dropped, or apart by a plural "s" or "es"
+    static boolean isVariant(String a, String b) {
+        String shorter = a.replace("-", "");
+        String longer = b.replace("-", "");
+        if (shorter.length() > longer.length()) {
+            String swap = shorter;
+            shorter = longer;
+            longer = swap;
+        }
+        return longer.startsWith(shorter) && switch (longer.substring(shorter.length())) {
+            case "", "s", "es" -> true;
+            default -> false;
+        };
+    }
+
+    public void add(String spelling) {
+        if (enabled && !spelling.isEmpty()) {
+            if (spellings.add(spelling)) {
+                index.add(spelling, TagEmbedding.of(spelling));
+            }
+        }
+    }
+
+    public int size() {
+        return index.size();
+    }
+}
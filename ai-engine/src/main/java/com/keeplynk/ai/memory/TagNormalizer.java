@@ -2,10 +2,56 @@ package com.keeplynk.ai.memory;
 
 public class TagNormalizer {
 
+    /**
+     * Lower-cases and trims the tag, drops everything but {@code a-z},
+     * {@code 0-9} and spaces, and turns each run of spaces into one
+     * {@code -}. Done in one pass; a tag that is already normalized is
+     * returned as is.
+     */
     public static String normalize(String tag) {
-        return tag.toLowerCase()
-                  .trim()
-                  .replaceAll("[^a-z0-9 ]", "")
-                  .replaceAll("\\s+", "-");
+        int start = 0;
+        int end = tag.length();
+        while (start < end && tag.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && tag.charAt(end - 1) <= ' ') {
+            end--;
+        }
+
+        if (start == 0 && end == tag.length() && isNormalized(tag)) {
+            return tag;
+        }
+
+        char[] out = new char[end - start];
+        int length = 0;
+        boolean inSpace = false;
+        for (int i = start; i < end; i++) {
+            char c = tag.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                c = (char) (c + ('a' - 'A'));
+            } else if (c > 0x7f) {
+                // e.g. the Kelvin sign lower-cases to 'k'
+                c = Character.toLowerCase(c);
+            }
+
+            if (c >= 'a' && c <= 'z' || c >= '0' && c <= '9') {
+                out[length++] = c;
+                inSpace = false;
+            } else if (c == ' ' && !inSpace) {
+                out[length++] = '-';
+                inSpace = true;
+            }
+        }
+        return new String(out, 0, length);
+    }
+
+    private static boolean isNormalized(String tag) {
+        for (int i = 0; i < tag.length(); i++) {
+            char c = tag.charAt(i);
+            if (!(c >= 'a' && c <= 'z' || c >= '0' && c <= '9')) {
+                return false;
+            }
+        }
+        return true;
     }
 }
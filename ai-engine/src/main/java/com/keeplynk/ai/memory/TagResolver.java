@@ -0,0 +1,32 @@
+package com.keeplynk.ai.memory;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Resolves raw tags against the user's memory, as
+ * {@link MemoryService#reuseOrCreate} does. {@code memory.mode} selects the
+ * implementation: {@code blocking} (default) runs MemoryService on the given
+ * executor, {@code reactive} goes through {@link ReactiveMemoryService} and
+ * ignores it.
+ */
+public interface TagResolver {
+
+    CompletableFuture<String> resolve(String userId, String rawTag, Executor executor);
+
+    /**
+     * Resolves all tags at once; the result keeps their order and drops
+     * duplicates, e.g. two spellings resolving to the same tag.
+     */
+    default CompletableFuture<List<String>> resolveAll(String userId, List<String> rawTags, Executor executor) {
+        List<CompletableFuture<String>> resolved = rawTags.stream()
+                .map(tag -> resolve(userId, tag, executor))
+                .toList();
+        return CompletableFuture.allOf(resolved.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> resolved.stream()
+                        .map(CompletableFuture::join)
+                        .distinct()
+                        .toList());
+    }
+}
@@ -0,0 +1,264 @@
+package com.keeplynk.ai.memory;
+
+import com.keeplynk.ai.llm.LlmClient;
+import com.keeplynk.ai.store.EnrichmentStore;
+
+import jakarta.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Local fast path for tags and category: naive Bayes over URL host/path
+ * tokens and persona, trained on every LLM-produced outcome and warmed up
+ * at startup from the LLM-produced results in {@link EnrichmentStore}.
+ * Labels come from each user's own vocabulary, so every tenant (and the
+ * shared vocabulary) has its own models, kept in a Caffeine cache of
+ * {@code memory.classifier.max-tenants}; an evicted tenant starts over.
+ *
+ * <p>{@code memory.classifier.mode} is {@code off}, {@code shadow} (predict
+ * and score against the LLM answer, but always ask the LLM) or {@code on}
+ * (skills skip the LLM when a guess is confident). Shadow results are
+ * counted in {@code memory.classifier.shadow} by skill and outcome, so the
+ * thresholds can be tuned before the fast path is switched on.
+ */
+@Component
+public class UrlClassifier {
+
+    private static final Logger log = LoggerFactory.getLogger(UrlClassifier.class);
+
+    /**
+     * A confident prediction, or {@link #none()}.
+     */
+    public record Guess<T>(T value, double confidence) {
+
+        public static <T> Guess<T> none() {
+            return new Guess<>(null, 0);
+        }
+
+        public boolean isPresent() {
+            return value != null;
+        }
+    }
+
+    private record Models(NaiveBayes tags, NaiveBayes category) {
+    }
+
+    private final EnrichmentStore enrichmentStore;
+    private final MeterRegistry meterRegistry;
+    // Keyed by tenant, "" for the shared vocabulary
+    private final Cache<String, Models> models;
+    private final int maxFeatures;
+
+    // off | shadow | on
+    @Value("${memory.classifier.mode:shadow}")
+    private String mode;
+
+    @Value("${memory.classifier.category-threshold:0.9}")
+    private double categoryThreshold;
+
+    // Combined probability the chosen tags must reach
+    @Value("${memory.classifier.tag-threshold:0.8}")
+    private double tagThreshold;
+
+    // Tags below this probability are not part of a guess
+    @Value("${memory.classifier.min-tag-probability:0.1}")
+    private double minTagProbability;
+
+    @Value("${memory.classifier.min-tags:3}")
+    private int minTags;
+
+    @Value("${memory.classifier.max-tags:5}")
+    private int maxTags;
+
+    // Training examples a label needs before it is ever predicted
+    @Value("${memory.classifier.min-support:5}")
+    private int minSupport;
+
+    public UrlClassifier(
+        EnrichmentStore enrichmentStore,
+        MeterRegistry meterRegistry,
+        @Value("${memory.classifier.max-features:100000}") int maxFeatures,
+        @Value("${memory.classifier.max-tenants:1000}") int maxTenants
+    ) {
+        this.enrichmentStore = enrichmentStore;
+        this.meterRegistry = meterRegistry;
+        this.maxFeatures = maxFeatures;
+        this.models = Caffeine.newBuilder()
+                .maximumSize(maxTenants)
+                .build();
+    }
+
+    @PostConstruct
+    void warmUp() {
+        Gauge.builder("memory.classifier.examples", this, classifier -> classifier.examples(Models::tags))
+                .tag("model", "tags")
+                .register(meterRegistry);
+        Gauge.builder("memory.classifier.examples", this, classifier -> classifier.examples(Models::category))
+                .tag("model", "category")
+                .register(meterRegistry);
+        Gauge.builder("memory.classifier.tenants", models, Cache::estimatedSize)
+                .register(meterRegistry);
+
+        if (isOff()) {
+            return;
+        }
+        // Results are kept per user and needs; each resource and field is learned once
+        Set<String> learned = new HashSet<>();
+        enrichmentStore.forEach((key, result) -> {
+            Models tenant = models(key.userId());
+            List<String> features = UrlFeatures.of(key.canonicalUrl(), key.persona());
+            String resource = key.userId() + '\n' + key.canonicalUrl() + '\n' + key.persona() + '\n';
+            Collection<?> predicted = result.get(EnrichmentStore.PREDICTED) instanceof Collection<?> keys
+                    ? keys
+                    : List.of();
+            if (result.get("tags") instanceof List<?> tags && !predicted.contains("tags")
+                    && learned.add(resource + "tags")) {
+                learnTags(tenant, features, tags.stream().map(String::valueOf).toList());
+            }
+            if (result.get("category") instanceof String category && !predicted.contains("category")
+                    && learned.add(resource + "category")) {
+                learnCategory(tenant, features, category);
+            }
+        });
+        log.info("URL classifier warmed up with {} tag and {} category examples for {} tenants",
+                examples(Models::tags), examples(Models::category), models.estimatedSize());
+    }
+
+    /**
+     * True when a confident guess should be used instead of asking the LLM;
+     * such answers are counted in {@code memory.classifier.answered}.
+     */
+    public boolean answers(String skill, Guess<?> guess) {
+        if (!"on".equalsIgnoreCase(mode) || !guess.isPresent()) {
+            return false;
+        }
+        meterRegistry.counter("memory.classifier.answered", "skill", skill).increment();
+        return true;
+    }
+
+    /**
+     * @param userId owning user, whose past categories are the labels; null
+     *        or blank for the shared vocabulary
+     */
+    public Guess<String> guessCategory(String userId, String url, String persona) {
+        Models tenant = isOff() ? null : models.getIfPresent(key(userId));
+        if (tenant == null) {
+            return Guess.none();
+        }
+        List<NaiveBayes.Prediction> predictions = tenant.category().predict(UrlFeatures.of(url, persona));
+        if (predictions.isEmpty()) {
+            return Guess.none();
+        }
+        NaiveBayes.Prediction best = predictions.get(0);
+        if (best.probability() < categoryThreshold || best.support() < minSupport) {
+            return Guess.none();
+        }
+        return new Guess<>(best.label(), best.probability());
+    }
+
+    public Guess<List<String>> guessTags(String userId, String url, String persona) {
+        Models tenant = isOff() ? null : models.getIfPresent(key(userId));
+        if (tenant == null) {
+            return Guess.none();
+        }
+        List<String> tags = new ArrayList<>();
+        double confidence = 0;
+        for (NaiveBayes.Prediction prediction : tenant.tags().predict(UrlFeatures.of(url, persona))) {
+            if (tags.size() >= maxTags || prediction.probability() < minTagProbability) {
+                break;
+            }
+            if (prediction.support() >= minSupport) {
+                tags.add(prediction.label());
+                confidence += prediction.probability();
+            }
+        }
+        if (tags.size() < minTags || confidence < tagThreshold) {
+            return Guess.none();
+        }
+        return new Guess<>(List.copyOf(tags), confidence);
+    }
+
+    /**
+     * Learns the category the LLM produced and scores the guess made for the
+     * same resource, if there was one.
+     */
+    public void observeCategory(String userId, String url, String persona, Guess<String> guess, String category) {
+        if (isOff() || category == null || LlmClient.isFailure(category)) {
+            return;
+        }
+        if (guess.isPresent()) {
+            shadow("category", guess.value().equalsIgnoreCase(category.trim()));
+        }
+        learnCategory(models(userId), UrlFeatures.of(url, persona), category);
+    }
+
+    // A tag guess agrees when at least half of its tags are among the LLM's
+    public void observeTags(String userId, String url, String persona, Guess<List<String>> guess, List<String> tags) {
+        if (isOff() || tags == null || tags.isEmpty()) {
+            return;
+        }
+        if (guess.isPresent()) {
+            long hits = guess.value().stream().filter(tags::contains).count();
+            shadow("tags", hits * 2 >= guess.value().size());
+        }
+        learnTags(models(userId), UrlFeatures.of(url, persona), tags);
+    }
+
+    private void learnTags(Models tenant, List<String> features, List<String> tags) {
+        for (String tag : tags) {
+            if (!tag.isBlank()) {
+                tenant.tags().learn(features, tag.toLowerCase(Locale.ROOT));
+            }
+        }
+    }
+
+    private void learnCategory(Models tenant, List<String> features, String category) {
+        if (!category.isBlank()) {
+            tenant.category().learn(features, category.trim());
+        }
+    }
+
+    private Models models(String userId) {
+        return models.get(key(userId), ignored -> new Models(new NaiveBayes(maxFeatures), new NaiveBayes(maxFeatures)));
+    }
+
+    // Same tenants as MemoryService
+    private static String key(String userId) {
+        String tenant = MemoryService.tenant(userId);
+        return tenant == null ? "" : tenant;
+    }
+
+    private long examples(Function<Models, NaiveBayes> model) {
+        return models.asMap().values().stream().mapToLong(tenant -> model.apply(tenant).examples()).sum();
+    }
+
+    private void shadow(String skill, boolean agreed) {
+        Counter.builder("memory.classifier.shadow")
+                .tag("skill", skill)
+                .tag("outcome", agreed ? "agree" : "disagree")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private boolean isOff() {
+        return "off".equalsIgnoreCase(mode);
+    }
+}
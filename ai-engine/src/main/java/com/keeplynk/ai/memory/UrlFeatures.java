@@ -0,0 +1,105 @@
+package com.keeplynk.ai.memory;
+
+import com.keeplynk.ai.agent.UrlCanonicalizer;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Turns a URL and persona into the tokens {@link UrlClassifier} learns from:
+ * host, site name, subdomains, first path segment, path words and persona.
+ */
+final class UrlFeatures {
+
+    private static final int MAX_PATH_WORDS = 16;
+    private static final int MAX_WORD_LENGTH = 24;
+
+    private UrlFeatures() {
+    }
+
+    static List<String> of(String url, String persona) {
+        Set<String> features = new LinkedHashSet<>();
+
+        URI uri;
+        try {
+            uri = URI.create(UrlCanonicalizer.canonicalize(url));
+        } catch (IllegalArgumentException e) {
+            uri = null;
+        }
+
+        if (uri != null && uri.getHost() != null) {
+            String host = uri.getHost();
+            if (host.startsWith("www.")) {
+                host = host.substring(4);
+            }
+            features.add("host:" + host);
+
+            String[] labels = host.split("\\.");
+            int site = siteLabel(labels);
+            if (site >= 0) {
+                features.add("site:" + labels[site]);
+                for (int i = 0; i < site; i++) {
+                    features.add("sub:" + labels[i]);
+                }
+            }
+            addPath(features, uri.getPath());
+        }
+
+        if (persona != null && !persona.isBlank()) {
+            features.add("persona:" + persona.trim().toLowerCase(Locale.ROOT));
+        }
+        return new ArrayList<>(features);
+    }
+
+    // "github" in docs.github.com; "bbc" in bbc.co.uk
+    private static int siteLabel(String[] labels) {
+        if (labels.length < 2) {
+            return labels.length - 1;
+        }
+        int site = labels.length - 2;
+        boolean secondLevelSuffix = labels.length >= 3
+                && labels[labels.length - 1].length() == 2
+                && labels[site].length() <= 3;
+        return secondLevelSuffix ? site - 1 : site;
+    }
+
+    private static void addPath(Set<String> features, String path) {
+        if (path == null || path.isEmpty()) {
+            return;
+        }
+        String[] segments = path.toLowerCase(Locale.ROOT).split("/");
+        int words = 0;
+        boolean first = true;
+        for (String segment : segments) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if (first) {
+                features.add("p0:" + segment);
+                first = false;
+            }
+            for (String word : segment.split("[^a-z0-9]+")) {
+                if (isWord(word) && words++ < MAX_PATH_WORDS) {
+                    features.add("w:" + word);
+                }
+            }
+        }
+    }
+
+    // Skips ids, hashes and other tokens that never repeat across resources
+    private static boolean isWord(String word) {
+        if (word.length() < 2 || word.length() > MAX_WORD_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if (!Character.isDigit(word.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
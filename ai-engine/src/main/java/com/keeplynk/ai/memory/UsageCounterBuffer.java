@@ -0,0 +1,200 @@
+package com.keeplynk.ai.memory;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import com.mongodb.bulk.BulkWriteError;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind usage counting for {@code agent_memory} entries. Uses are
+ * summed per entry in memory and flushed every {@code memory.usage.flush-ms}
+ * as one unordered bulk write of {@code $inc usageCount},
+ * {@code $max lastUsedAt} and {@code $addToSet aliases}, so a request no
+ * longer writes to Mongo for every tag it touches and concurrent uses are
+ * never lost to a read-modify-save.
+ *
+ * <p>Only uses of existing entries are buffered; {@link MemoryService}
+ * creates new ones synchronously, and a use of an entry deleted since is
+ * dropped rather than bringing it back. Whatever is pending is flushed on
+ * shutdown; a failed flush is put back and retried with the next one.
+ */
+@Component
+public class UsageCounterBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(UsageCounterBuffer.class);
+
+    private record Key(String tenantId, String type, String value) {
+    }
+
+    // Only ever touched inside ConcurrentHashMap.compute/remove for its key
+    private static final class Pending {
+        private final long firstAt = System.nanoTime();
+        private long uses;
+        private Instant lastUsedAt;
+        private final Set<String> aliases = new HashSet<>();
+
+        void merge(long count, Instant usedAt, Set<String> spellings) {
+            uses += count;
+            if (lastUsedAt == null || usedAt.isAfter(lastUsedAt)) {
+                lastUsedAt = usedAt;
+            }
+            aliases.addAll(spellings);
+        }
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Map<Key, Pending> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(
+        Thread.ofVirtual().name("usage-flush").factory()
+    );
+
+    @Value("${memory.usage.flush-ms:1000}")
+    private long flushMs;
+
+    // Updates per bulk write
+    @Value("${memory.usage.batch-size:500}")
+    private int batchSize;
+
+    public UsageCounterBuffer(MongoTemplate mongoTemplate, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void start() {
+        Gauge.builder("memory.usage.pending", pending, Map::size)
+                .register(meterRegistry);
+        Gauge.builder("memory.usage.lag", this, UsageCounterBuffer::lagMs)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushMs, flushMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(flushMs * 5, TimeUnit.MILLISECONDS);
+        flush();
+        if (!pending.isEmpty()) {
+            log.warn("{} usage counters could not be flushed on shutdown", pending.size());
+        }
+    }
+
+    /**
+     * Counts one use of an entry; {@code spelling} is recorded as an alias
+     * when it differs from the value. A null tenant is the shared vocabulary.
+     */
+    public void recordUse(String tenantId, String type, String value, String spelling) {
+        Set<String> aliases = spelling == null || spelling.equals(value) ? Set.of() : Set.of(spelling);
+        add(new Key(tenantId, type, value), 1, Instant.now(), aliases);
+    }
+
+    private void add(Key key, long count, Instant usedAt, Set<String> aliases) {
+        pending.compute(key, (k, p) -> {
+            Pending target = p != null ? p : new Pending();
+            target.merge(count, usedAt, aliases);
+            return target;
+        });
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Usage counter flush failed: {}", e.getMessage());
+        }
+    }
+
+    synchronized void flush() {
+        List<Key> keys = new ArrayList<>(pending.keySet());
+        for (int from = 0; from < keys.size(); from += batchSize) {
+            List<Map.Entry<Key, Pending>> batch = new ArrayList<>();
+            for (Key key : keys.subList(from, Math.min(keys.size(), from + batchSize))) {
+                Pending drained = pending.remove(key);
+                if (drained != null) {
+                    batch.add(Map.entry(key, drained));
+                }
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+            }
+        }
+    }
+
+    private void write(List<Map.Entry<Key, Pending>> batch) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AgentMemory.class);
+        for (Map.Entry<Key, Pending> entry : batch) {
+            Key key = entry.getKey();
+            Pending uses = entry.getValue();
+            Update update = new Update()
+                    .inc("usageCount", uses.uses)
+                    .max("lastUsedAt", uses.lastUsedAt);
+            if (!uses.aliases.isEmpty()) {
+                update.addToSet("aliases").each(uses.aliases.toArray());
+            }
+            Query query = Query.query(Criteria.where("tenantId").is(key.tenantId())
+                    .and("type").is(key.type())
+                    .and("value").is(key.value()));
+            bulk.updateOne(query, update);
+        }
+
+        try {
+            bulk.execute();
+            meterRegistry.counter("memory.usage.flushed").increment(batch.size());
+        } catch (BulkOperationException e) {
+            // The rest were applied; only the failed updates go back
+            for (BulkWriteError error : e.getErrors()) {
+                restore(batch.get(error.getIndex()));
+            }
+            meterRegistry.counter("memory.usage.flushed").increment(batch.size() - e.getErrors().size());
+            meterRegistry.counter("memory.usage.flush.failures").increment();
+            throw e;
+        } catch (RuntimeException e) {
+            batch.forEach(this::restore);
+            meterRegistry.counter("memory.usage.flush.failures").increment();
+            throw e;
+        }
+    }
+
+    // Merged back into whatever accumulated meanwhile, for the next flush
+    private void restore(Map.Entry<Key, Pending> entry) {
+        Pending uses = entry.getValue();
+        add(entry.getKey(), uses.uses, uses.lastUsedAt, uses.aliases);
+    }
+
+    // Age of the oldest use not yet written to Mongo
+    private double lagMs() {
+        long now = System.nanoTime();
+        long oldest = now;
+        for (Pending p : pending.values()) {
+            oldest = Math.min(oldest, p.firstAt);
+        }
+        return (now - oldest) / 1_000_000.0;
+    }
+}
@@ -0,0 +1,251 @@
+package com.keeplynk.ai.memory;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-process copies of the {@code agent_memory} vocabulary: every tag and
+ * category spelling (value or alias) mapped to its canonical value.
+ * {@link MemoryService} resolves against them, so once loaded the hot path
+ * only writes to Mongo.
+ *
+ * <p>The shared vocabulary (entries without a tenant) is loaded in the
+ * background at startup and reloaded every
+ * {@code memory.vocabulary.refresh-seconds}; its tags are matched fuzzily
+ * through {@link TagIndex}. A tenant's vocabulary is loaded on first use,
+ * reloaded in the background on use once older than the same interval, and
+ * kept in a Caffeine cache of {@code memory.vocabulary.max-tenants}, so
+ * lookups never share a lock across tenants; its tags are matched by edit
+ * distance only, under the same rules. Entries are never deleted, so reloads
+ * only add. Lookups are counted in {@code memory.vocabulary.lookups} by
+ * scope, type and outcome.
+ */
+@Component
+public class VocabularyCache {
+
+    private static final Logger log = LoggerFactory.getLogger(VocabularyCache.class);
+
+    private final AgentMemoryRepository repo;
+    private final TagIndex tagIndex;
+    private final MeterRegistry meterRegistry;
+    private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(
+        Thread.ofVirtual().name("vocabulary-refresh").factory()
+    );
+
+    private final Vocabulary shared = new Vocabulary(null);
+    private final LoadingCache<String, Vocabulary> tenants;
+    private final long refreshSeconds;
+
+    @Value("${memory.vocabulary.enabled:true}")
+    private boolean enabled;
+
+    public VocabularyCache(
+        AgentMemoryRepository repo,
+        TagIndex tagIndex,
+        MeterRegistry meterRegistry,
+        @Value("${memory.vocabulary.refresh-seconds:300}") long refreshSeconds,
+        @Value("${memory.vocabulary.max-tenants:1000}") int maxTenants
+    ) {
+        this.repo = repo;
+        this.tagIndex = tagIndex;
+        this.meterRegistry = meterRegistry;
+        this.refreshSeconds = refreshSeconds;
+        this.tenants = Caffeine.newBuilder()
+                .maximumSize(maxTenants)
+                .refreshAfterWrite(Duration.ofSeconds(refreshSeconds))
+                .executor(refresher)
+                .build(new CacheLoader<String, Vocabulary>() {
+                    // Empty until the first load in vocabulary() has run
+                    @Override
+                    public Vocabulary load(String tenantId) {
+                        return new Vocabulary(tenantId);
+                    }
+
+                    // Reloads only add, so the same instance is refilled in place
+                    @Override
+                    public Vocabulary reload(String tenantId, Vocabulary vocabulary) {
+                        if (enabled && vocabulary.loading.compareAndSet(false, true)) {
+                            VocabularyCache.this.load(vocabulary);
+                        }
+                        return vocabulary;
+                    }
+                });
+    }
+
+    // In the background, so an unreachable Mongo does not hold up startup
+    @EventListener(ApplicationReadyEvent.class)
+    void start() {
+        Gauge.builder("memory.vocabulary.tenants", this, VocabularyCache::tenantCount)
+                .register(meterRegistry);
+        if (enabled) {
+            refresher.scheduleWithFixedDelay(() -> load(shared), 0, refreshSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    private void load(Vocabulary vocabulary) {
+        try {
+            List<AgentMemory> tagEntries = repo.findByTenantIdAndType(vocabulary.tenantId, "TAG");
+            for (AgentMemory tag : tagEntries) {
+                putTag(vocabulary, tag.getValue(), tag.getValue(), true);
+                if (tag.getAliases() != null) {
+                    tag.getAliases().forEach(alias ->
+                            putTag(vocabulary, TagNormalizer.normalize(alias), tag.getValue(), true));
+                }
+            }
+            List<AgentMemory> categoryEntries = repo.findByTenantIdAndType(vocabulary.tenantId, "CATEGORY");
+            for (AgentMemory category : categoryEntries) {
+                putCategory(vocabulary, category.getValue(), category.getValue(), true);
+                if (category.getAliases() != null) {
+                    category.getAliases().forEach(alias -> putCategory(vocabulary, alias, category.getValue(), true));
+                }
+            }
+            if (!vocabulary.loaded && vocabulary == shared) {
+                log.info("Vocabulary loaded: {} tags, {} categories", tagEntries.size(), categoryEntries.size());
+            }
+            vocabulary.loaded = true;
+        } catch (RuntimeException e) {
+            log.warn("Vocabulary refresh failed, keeping the previous copy: {}", e.getMessage());
+        } finally {
+            vocabulary.loading.set(false);
+        }
+    }
+
+    /**
+     * @param tenantId owning user, or null for the shared vocabulary
+     * @param term a normalized tag
+     * @return the canonical tag for {@code term}, or for a close spelling of it
+     */
+    public Optional<String> tag(String tenantId, String term) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Vocabulary vocabulary = vocabulary(tenantId);
+        String exact = vocabulary.tags.get(term);
+        if (exact != null) {
+            return counted(vocabulary, "TAG", "hit", exact);
+        }
+        Optional<String> close = vocabulary == shared
+                ? tagIndex.similar(term)
+                : Optional.ofNullable(tagIndex.closest(vocabulary.spellings, term)).map(BkTree.Match::term);
+        String similar = close.map(vocabulary.tags::get).orElse(null);
+        if (similar != null) {
+            return counted(vocabulary, "TAG", "similar", similar);
+        }
+        return counted(vocabulary, "TAG", "miss", null);
+    }
+
+    public Optional<String> category(String tenantId, String term) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Vocabulary vocabulary = vocabulary(tenantId);
+        String exact = vocabulary.categories.get(term);
+        return counted(vocabulary, "CATEGORY", exact != null ? "hit" : "miss", exact);
+    }
+
+    // Records a spelling just written to Mongo
+    public void addTag(String tenantId, String spelling, String tag) {
+        if (enabled) {
+            putTag(vocabulary(tenantId), spelling, tag, false);
+        }
+    }
+
+    public void addCategory(String tenantId, String spelling, String category) {
+        if (enabled) {
+            putCategory(vocabulary(tenantId), spelling, category, false);
+        }
+    }
+
+    // Loads a tenant's vocabulary on first use, and again after a failed load; the cache refreshes it once stale
+    private Vocabulary vocabulary(String tenantId) {
+        if (tenantId == null) {
+            return shared;
+        }
+        Vocabulary vocabulary = tenants.get(tenantId);
+        if (enabled && !vocabulary.loaded && vocabulary.loading.compareAndSet(false, true)) {
+            refresher.execute(() -> load(vocabulary));
+        }
+        return vocabulary;
+    }
+
+    // Mongo wins over a local mapping on reload
+    private void putTag(Vocabulary vocabulary, String spelling, String tag, boolean fromMongo) {
+        if (spelling == null || spelling.isEmpty() || tag == null) {
+            return;
+        }
+        if (fromMongo) {
+            vocabulary.tags.put(spelling, tag);
+        } else {
+            vocabulary.tags.putIfAbsent(spelling, tag);
+        }
+        if (vocabulary == shared) {
+            tagIndex.add(spelling);
+        } else {
+            vocabulary.spellings.add(spelling);
+        }
+    }
+
+    private void putCategory(Vocabulary vocabulary, String spelling, String category, boolean fromMongo) {
+        if (spelling == null || spelling.isEmpty() || category == null) {
+            return;
+        }
+        if (fromMongo) {
+            vocabulary.categories.put(spelling, category);
+        } else {
+            vocabulary.categories.putIfAbsent(spelling, category);
+        }
+    }
+
+    private Optional<String> counted(Vocabulary vocabulary, String type, String outcome, String value) {
+        meterRegistry.counter("memory.vocabulary.lookups",
+                "scope", vocabulary == shared ? "shared" : "tenant", "type", type, "outcome", outcome).increment();
+        return Optional.ofNullable(value);
+    }
+
+    private long tenantCount() {
+        return tenants.estimatedSize();
+    }
+
+    private static final class Vocabulary {
+
+        private final String tenantId;
+        private final Map<String, String> tags = new ConcurrentHashMap<>();
+        private final Map<String, String> categories = new ConcurrentHashMap<>();
+        // Tenants only; the shared vocabulary goes through TagIndex
+        private final BkTree spellings = new BkTree();
+        private final AtomicBoolean loading = new AtomicBoolean();
+        private volatile boolean loaded;
+
+        Vocabulary(String tenantId) {
+            this.tenantId = tenantId;
+        }
+    }
+}
@@ -1,19 +1,153 @@
 package com.keeplynk.ai.orchestrator;
 
 import com.keeplynk.ai.agent.AgentContext;
+import com.keeplynk.ai.agent.EnrichmentKey;
 import com.keeplynk.ai.agent.ResourceAgent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 @Service
 public class AgentExecutor {
 
+    private static final Logger log = LoggerFactory.getLogger(AgentExecutor.class);
+
     private final ResourceAgent resourceAgent;
 
+    // One in-flight execution per canonical URL + persona + needs
+    private final ConcurrentHashMap<EnrichmentKey, CompletableFuture<Outcome>> inFlight = new ConcurrentHashMap<>();
+
+    @Value("${agent.coalesce.enabled:true}")
+    private boolean coalesce;
+
+    // How long a duplicate request waits for the leader before running on its own
+    @Value("${agent.coalesce.wait-timeout-ms:20000}")
+    private long waitTimeoutMs;
+
     public AgentExecutor(ResourceAgent resourceAgent) {
         this.resourceAgent = resourceAgent;
     }
 
+    /**
+     * Runs the resource agent, coalescing concurrent requests for the same
+     * resource: the first caller executes the skills and every caller that
+     * arrives meanwhile receives a copy of its result, or of its failure.
+     */
     public void runResourceAgent(AgentContext context) {
-        resourceAgent.execute(context);
+        try {
+            runResourceAgentAsync(context).join();
+        } catch (CompletionException e) {
+            Throwable cause = unwrap(e);
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Enrichment failed", cause);
+        }
+    }
+
+    // Non-blocking variant of runResourceAgent with the same coalescing
+    public CompletableFuture<Void> runResourceAgentAsync(AgentContext context) {
+        if (!coalesce) {
+            return resourceAgent.executeAsync(context);
+        }
+
+        EnrichmentKey key = EnrichmentKey.of(context);
+        CompletableFuture<Outcome> mine = new CompletableFuture<>();
+        CompletableFuture<Outcome> leader = inFlight.putIfAbsent(key, mine);
+
+        if (leader == null) {
+            return lead(key, mine, context);
+        }
+        return follow(leader, context);
+    }
+
+    private CompletableFuture<Void> lead(EnrichmentKey key, CompletableFuture<Outcome> outcome, AgentContext context) {
+        int firstStep = context.getReasoning().size();
+
+        CompletableFuture<Void> execution;
+        try {
+            execution = resourceAgent.executeAsync(context);
+        } catch (RuntimeException e) {
+            execution = CompletableFuture.failedFuture(e);
+        }
+
+        return execution.whenComplete((ignored, error) -> {
+            inFlight.remove(key, outcome);
+            if (error != null) {
+                outcome.completeExceptionally(unwrap(error));
+            } else {
+                outcome.complete(Outcome.of(context, firstStep));
+            }
+        });
+    }
+
+    private CompletableFuture<Void> follow(CompletableFuture<Outcome> leader, AgentContext context) {
+        context.addReasoning("Joined in-flight enrichment for the same resource");
+
+        // copy() so the timeout applies to this waiter only, not to the shared future
+        return leader.copy()
+                .orTimeout(waitTimeoutMs, TimeUnit.MILLISECONDS)
+                .thenAccept(outcome -> outcome.copyInto(context))
+                .exceptionallyCompose(error -> {
+                    Throwable cause = unwrap(error);
+                    if (cause instanceof TimeoutException) {
+                        log.warn("In-flight enrichment for {} took over {} ms, running independently",
+                                context.getUrl(), waitTimeoutMs);
+                        context.addReasoning("In-flight enrichment did not finish in time, running independently");
+                        return resourceAgent.executeAsync(context);
+                    }
+                    // Same failure the leader's caller saw
+                    return CompletableFuture.failedFuture(cause);
+                });
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * Immutable copy of what one execution produced, safe to hand to any
+     * number of waiting requests.
+     */
+    private record Outcome(Map<String, Object> memory, List<String> reasoning, Set<String> predicted, boolean degraded) {
+
+        static Outcome of(AgentContext context, int firstStep) {
+            Map<String, Object> memory = new HashMap<>();
+            context.getMemory().forEach((key, value) -> memory.put(key, copy(value)));
+            List<String> reasoning = List.copyOf(
+                context.getReasoning().subList(firstStep, context.getReasoning().size())
+            );
+            return new Outcome(memory, reasoning, Set.copyOf(context.getPredicted()), context.isDegraded());
+        }
+
+        void copyInto(AgentContext context) {
+            predicted.forEach(context::markPredicted);
+            memory.forEach((key, value) -> context.putMemory(key, copy(value)));
+            reasoning.forEach(context::addReasoning);
+            if (degraded) {
+                context.markDegraded();
+            }
+        }
+
+        // Lists (tags) are the only mutable values skills put into memory
+        private static Object copy(Object value) {
+            return value instanceof List<?> list ? new ArrayList<>(list) : value;
+        }
     }
 }
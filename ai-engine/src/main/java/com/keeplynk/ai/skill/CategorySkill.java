@@ -1,13 +1,21 @@
 package com.keeplynk.ai.skill;
 
-import com.keeplynk.ai.agent.AgentContext;
+import com.keeplynk.ai.agent.SkillContext;
+import com.keeplynk.ai.llm.GenerationOptions;
 import com.keeplynk.ai.llm.LlmClient;
 import com.keeplynk.ai.memory.MemoryService;
+import com.keeplynk.ai.memory.UrlClassifier;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 // Category / Folder
 
 @Component
@@ -16,17 +24,92 @@ public class CategorySkill implements Skill {
 
     private final LlmClient llmClient;
     private final MemoryService memoryService;
+    private final UrlClassifier urlClassifier;
+    private final GenerationOptions budget;
 
-    public CategorySkill(LlmClient llmClient, @Autowired(required = false) MemoryService memoryService) {
+    public CategorySkill(
+        LlmClient llmClient,
+        @Autowired(required = false) MemoryService memoryService,
+        UrlClassifier urlClassifier,
+        SkillBudgets budgets
+    ) {
         this.llmClient = llmClient;
         this.memoryService = memoryService;
+        this.urlClassifier = urlClassifier;
+        this.budget = budgets.forSkill("category");
+    }
+
+    @Override
+    public String needsKey() {
+        return "category";
     }
 
     @Override
-    public void apply(AgentContext context) {
+    public Set<String> reads() {
+        return Set.of("tags");
+    }
+
+    @Override
+    public Set<String> writes() {
+        return Set.of("category");
+    }
+
+    @Override
+    public void apply(SkillContext context) {
         context.addReasoning("CategorySkill started");
 
-        String prompt = """
+        List<String> tags = resolvedTags(context);
+        UrlClassifier.Guess<String> guess =
+                urlClassifier.guessCategory(context.getUserId(), context.getUrl(), context.getPersona());
+        if (urlClassifier.answers("category", guess)) {
+            predicted(context, tags, guess);
+            return;
+        }
+        if (applyInferred(context, tags)) {
+            return;
+        }
+
+        String rawCategory = llmClient.generate(prompt(context), budget);
+        observe(context, guess, record(context, tags, rawCategory));
+    }
+
+    @Override
+    public CompletableFuture<Void> applyAsync(SkillContext context, Executor executor) {
+        context.addReasoning("CategorySkill started");
+
+        List<String> tags = resolvedTags(context);
+        UrlClassifier.Guess<String> guess =
+                urlClassifier.guessCategory(context.getUserId(), context.getUrl(), context.getPersona());
+        if (urlClassifier.answers("category", guess)) {
+            return CompletableFuture.runAsync(() -> predicted(context, tags, guess), executor);
+        }
+
+        // Inference and MemoryService calls block on Mongo, so they run on the executor
+        return CompletableFuture.supplyAsync(() -> applyInferred(context, tags), executor)
+                .thenCompose(inferred -> inferred
+                        ? CompletableFuture.<Void>completedFuture(null)
+                        : context.cancelOnClose(llmClient.generateAsync(prompt(context), budget))
+                                .thenAcceptAsync(rawCategory -> observe(context, guess, record(context, tags, rawCategory)),
+                                        executor));
+    }
+
+    // Well-known tag sets usually map to one category already; skip the LLM for those
+    private boolean applyInferred(SkillContext context, List<String> tags) {
+        if (memoryService == null || tags.isEmpty()) {
+            return false;
+        }
+        Optional<String> inferred = memoryService.inferCategoryFromTags(context.getUserId(), tags);
+        if (inferred.isEmpty()) {
+            return false;
+        }
+        context.markPredicted("category");
+        context.putMemory("category", inferred.get());
+        context.addReasoning("CategorySkill derived category from tag history: " + inferred.get());
+        return true;
+    }
+
+    private String prompt(SkillContext context) {
+        return """
             Categorize the following URL into ONE category/folder name.
 
             URL: %s
@@ -37,17 +120,38 @@ public class CategorySkill implements Skill {
             - Use simple, clear category names
             - Output category name only
             """.formatted(context.getUrl(), context.getPersona());
+    }
 
-        String rawCategory = llmClient.generate(prompt);
+    private void predicted(SkillContext context, List<String> tags, UrlClassifier.Guess<String> guess) {
+        context.addReasoning("CategorySkill predicted category locally (confidence %.2f)".formatted(guess.confidence()));
+        context.markPredicted("category");
+        record(context, tags, guess.value());
+    }
+
+    private void observe(SkillContext context, UrlClassifier.Guess<String> guess, String finalCategory) {
+        urlClassifier.observeCategory(context.getUserId(), context.getUrl(), context.getPersona(), guess, finalCategory);
+    }
 
+    private String record(SkillContext context, List<String> tags, String rawCategory) {
         String finalCategory =
-                memoryService != null ? memoryService.reuseOrCreateCategory(rawCategory) : rawCategory;
+                memoryService != null ? memoryService.reuseOrCreateCategory(context.getUserId(), rawCategory) : rawCategory;
+
+        context.putMemory("category", finalCategory);
 
-        context.getMemory().put("category", finalCategory);
+        if (memoryService != null && !tags.isEmpty()) {
+            memoryService.recordCategoryForTags(context.getUserId(), tags, finalCategory);
+        }
 
         context.addReasoning(
             "CategorySkill reused category: " + finalCategory
         );
+        return finalCategory;
     }
-}
 
+    private List<String> resolvedTags(SkillContext context) {
+        if (context.getMemory().get("tags") instanceof List<?> tags) {
+            return tags.stream().map(String::valueOf).toList();
+        }
+        return List.of();
+    }
+}
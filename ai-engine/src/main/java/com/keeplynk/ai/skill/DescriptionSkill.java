@@ -1,27 +1,57 @@
 package com.keeplynk.ai.skill;
 
-import com.keeplynk.ai.agent.AgentContext;
+import com.keeplynk.ai.agent.SkillContext;
+import com.keeplynk.ai.llm.GenerationOptions;
 import com.keeplynk.ai.llm.LlmClient;
 
 
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 @Component
 @Order(2)
 public class DescriptionSkill implements Skill {
 
     private final LlmClient llmClient;
+    private final GenerationOptions budget;
 
-    public DescriptionSkill(LlmClient llmClient) {
+    public DescriptionSkill(LlmClient llmClient, SkillBudgets budgets) {
         this.llmClient = llmClient;
+        this.budget = budgets.forSkill("description");
+    }
+
+    @Override
+    public String needsKey() {
+        return "description";
+    }
+
+    @Override
+    public Set<String> writes() {
+        return Set.of("description");
     }
 
     @Override
-    public void apply(AgentContext context) {
+    public void apply(SkillContext context) {
         context.addReasoning("DescriptionSkill started");
-        
-        String prompt = """
+
+        String description = llmClient.generate(prompt(context), budget);
+        record(context, description);
+    }
+
+    @Override
+    public CompletableFuture<Void> applyAsync(SkillContext context, Executor executor) {
+        context.addReasoning("DescriptionSkill started");
+
+        return context.cancelOnClose(llmClient.generateAsync(prompt(context), budget))
+                .thenAccept(description -> record(context, description));
+    }
+
+    private String prompt(SkillContext context) {
+        return """
         		Generate a brief, informative description for the following URL.
 
         		URL: %s
@@ -34,11 +64,10 @@ public class DescriptionSkill implements Skill {
         		- No emojis or special characters
         		- Output description only, no additional text
         		""".formatted(context.getUrl(), context.getPersona());
-        
+    }
 
-        String description = llmClient.generate(prompt);
-        
-        context.getMemory().put("description", description);
+    private void record(SkillContext context, String description) {
+        context.putMemory("description", description);
         
         context.addReasoning("DescriptionSkill generated description");
     }
@@ -0,0 +1,259 @@
+package com.keeplynk.ai.skill;
+
+import com.keeplynk.ai.agent.SkillContext;
+import com.keeplynk.ai.llm.GenerationOptions;
+import com.keeplynk.ai.llm.LlmClient;
+import com.keeplynk.ai.llm.LlmUnavailableException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro-batches fused enrichments: requests asking for the same fields are
+ * collected for up to {@code agent.batch.window-ms} or
+ * {@code agent.batch.max-size} resources, then sent as one prompt that asks
+ * for a numbered JSON array. Each element is handed back to the request it
+ * belongs to; a resource whose element is missing or malformed completes with
+ * {@code false}, so its caller falls back to per-skill execution alone.
+ */
+@Component
+public class EnrichmentBatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(EnrichmentBatcher.class);
+
+    private final LlmClient llmClient;
+    private final FusedEnrichment fusedEnrichment;
+    private final ObjectMapper objectMapper;
+    // max-tokens is per resource and scaled by the batch size
+    private final GenerationOptions budget;
+
+    // Pending batch per requested field set; guarded by itself
+    private final Map<Set<String>, Batch> pending = new HashMap<>();
+
+    @Value("${agent.batch.max-size:8}")
+    private int maxSize;
+
+    @Value("${agent.batch.window-ms:50}")
+    private long windowMs;
+
+    public EnrichmentBatcher(
+        LlmClient llmClient,
+        FusedEnrichment fusedEnrichment,
+        ObjectMapper objectMapper,
+        SkillBudgets budgets
+    ) {
+        this.llmClient = llmClient;
+        this.fusedEnrichment = fusedEnrichment;
+        this.objectMapper = objectMapper;
+        this.budget = budgets.forSkill("batch");
+    }
+
+    /**
+     * Same contract as {@link FusedEnrichment#applyAsync}: completes with
+     * false when this resource got no usable result.
+     */
+    public CompletableFuture<Boolean> submit(SkillContext context, Executor executor) {
+        Set<String> fields = fusedEnrichment.requestedFields(context.getNeeds());
+        if (fields.isEmpty()) {
+            context.addReasoning("FusedEnrichment skipped (nothing requested)");
+            return CompletableFuture.completedFuture(true);
+        }
+
+        Item item = new Item(context, executor, new CompletableFuture<>());
+        Batch batch;
+        boolean opened = false;
+        boolean full = false;
+        synchronized (pending) {
+            batch = pending.get(fields);
+            if (batch == null) {
+                batch = new Batch(fields);
+                pending.put(fields, batch);
+                opened = true;
+            }
+            batch.items.add(item);
+            if (batch.items.size() >= maxSize) {
+                pending.remove(fields);
+                full = true;
+            }
+        }
+
+        if (full) {
+            flush(batch);
+        } else if (opened) {
+            Batch window = batch;
+            CompletableFuture.delayedExecutor(windowMs, TimeUnit.MILLISECONDS).execute(() -> flushIfPending(window));
+        }
+        return item.done();
+    }
+
+    private void flushIfPending(Batch batch) {
+        synchronized (pending) {
+            // Already flushed because it filled up
+            if (!pending.remove(batch.fields, batch)) {
+                return;
+            }
+        }
+        flush(batch);
+    }
+
+    private void flush(Batch batch) {
+        // A request that gave up while the batch was open no longer needs its resource
+        List<Item> items = batch.items.stream().filter(item -> !item.done().isDone()).toList();
+        if (items.isEmpty()) {
+            return;
+        }
+
+        // Nothing to amortise; the single-resource prompt is the better one
+        if (items.size() == 1) {
+            Item only = items.get(0);
+            fusedEnrichment.applyAsync(only.context(), only.executor()).whenComplete((done, error) -> {
+                if (error != null) {
+                    only.done().completeExceptionally(error);
+                } else {
+                    only.done().complete(done);
+                }
+            });
+            return;
+        }
+
+        for (Item item : items) {
+            item.context().addReasoning("EnrichmentBatcher generating " + batch.fields
+                    + " for " + items.size() + " resources in one call");
+        }
+
+        CompletableFuture<String> call;
+        try {
+            call = llmClient.generateAsync(buildPrompt(items, batch.fields),
+                    budget.withMaxTokens(budget.maxTokens() * items.size()));
+        } catch (RuntimeException e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+
+        call.whenComplete((response, error) -> {
+            if (error != null) {
+                failed(items, error);
+                return;
+            }
+            Map<Integer, FusedEnrichment.FusedResult> results = parse(response);
+            log.debug("Batched enrichment returned {} of {} results", results.size(), items.size());
+
+            for (int i = 0; i < items.size(); i++) {
+                Item item = items.get(i);
+                FusedEnrichment.FusedResult result = results.get(i + 1);
+                if (item.done().isDone()) {
+                    continue;
+                }
+                if (result == null) {
+                    item.context().addReasoning("EnrichmentBatcher got no usable result for this resource");
+                    item.done().complete(false);
+                    continue;
+                }
+                CompletableFuture.supplyAsync(() -> fusedEnrichment.record(item.context(), batch.fields, result),
+                                item.executor())
+                        .whenComplete((done, recordError) -> {
+                            if (recordError != null) {
+                                item.done().completeExceptionally(recordError);
+                            } else {
+                                item.done().complete(done);
+                            }
+                        });
+            }
+        });
+    }
+
+    private void failed(List<Item> items, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        for (Item item : items) {
+            if (cause instanceof LlmUnavailableException unavailable) {
+                item.done().complete(fusedEnrichment.unavailable(item.context(), unavailable));
+            } else {
+                // Each resource retries on its own
+                log.warn("Batched enrichment failed: {}", cause.getMessage());
+                item.context().addReasoning("EnrichmentBatcher call failed: " + cause.getMessage());
+                item.done().complete(false);
+            }
+        }
+    }
+
+    private String buildPrompt(List<Item> items, Set<String> fields) {
+        StringBuilder resources = new StringBuilder();
+        for (int i = 0; i < items.size(); i++) {
+            SkillContext context = items.get(i).context();
+            resources.append(i + 1).append(". URL: ").append(context.getUrl())
+                    .append("\n   Persona: ").append(context.getPersona()).append('\n');
+        }
+
+        return """
+            Generate metadata for each of the following resources.
+
+            %s
+            Return a JSON array with one object per resource, in the same order.
+            Each object has these fields:
+            - "id": the resource number above
+            %s
+            Rules:
+            - Output the JSON array only, no markdown and no additional text
+            """.formatted(resources, fusedEnrichment.fieldRules(fields));
+    }
+
+    /**
+     * Reads array elements one at a time, so a malformed element is skipped
+     * and an answer cut off by the token limit still yields the complete
+     * elements before the cut.
+     */
+    private Map<Integer, FusedEnrichment.FusedResult> parse(String response) {
+        Map<Integer, FusedEnrichment.FusedResult> results = new HashMap<>();
+        int start = response == null ? -1 : response.indexOf('[');
+        if (start < 0) {
+            log.warn("Batched response contained no JSON array: {}", response);
+            return results;
+        }
+
+        try (JsonParser parser = objectMapper.createParser(response.substring(start))) {
+            parser.nextToken();
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                JsonNode element = objectMapper.readValue(parser, JsonNode.class);
+                int id = element.path("id").asInt(-1);
+                try {
+                    results.putIfAbsent(id, objectMapper.treeToValue(element, FusedEnrichment.FusedResult.class));
+                } catch (JacksonException e) {
+                    log.warn("Skipping malformed batched result {}: {}", id, e.getOriginalMessage());
+                }
+            }
+        } catch (JacksonException e) {
+            log.warn("Batched response ended after {} results: {}", results.size(), e.getOriginalMessage());
+        }
+        return results;
+    }
+
+    private static final class Batch {
+
+        private final Set<String> fields;
+        private final List<Item> items = new ArrayList<>();
+
+        Batch(Set<String> fields) {
+            this.fields = fields;
+        }
+    }
+
+    private record Item(SkillContext context, Executor executor, CompletableFuture<Boolean> done) {
+    }
+}
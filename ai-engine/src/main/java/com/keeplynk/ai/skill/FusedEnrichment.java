@@ -0,0 +1,246 @@
+package com.keeplynk.ai.skill;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.keeplynk.ai.agent.SkillContext;
+import com.keeplynk.ai.llm.GenerationOptions;
+import com.keeplynk.ai.llm.LlmClient;
+import com.keeplynk.ai.llm.LlmUnavailableException;
+import com.keeplynk.ai.memory.MemoryService;
+import com.keeplynk.ai.memory.TagResolver;
+import com.keeplynk.ai.memory.UrlClassifier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Produces title, description, tags and category with a single LLM call.
+ * Builds one prompt for every field requested in {@code needs}, asks for a
+ * JSON object back and fans the fields into {@link SkillContext#getMemory()}
+ * under the same keys the individual skills use.
+ */
+@Component
+public class FusedEnrichment {
+
+    private static final Logger log = LoggerFactory.getLogger(FusedEnrichment.class);
+
+    private static final List<String> FIELDS = List.of("title", "description", "tags", "category");
+
+    private final LlmClient llmClient;
+    private final MemoryService memoryService;
+    private final TagResolver tagResolver;
+    private final ObjectMapper objectMapper;
+    private final UrlClassifier urlClassifier;
+    private final GenerationOptions budget;
+    // Resolves the tags of one answer concurrently
+    private final ExecutorService skillExecutor;
+
+    public FusedEnrichment(
+        LlmClient llmClient,
+        @Autowired(required = false) MemoryService memoryService,
+        @Autowired(required = false) TagResolver tagResolver,
+        ObjectMapper objectMapper,
+        UrlClassifier urlClassifier,
+        SkillBudgets budgets,
+        @Qualifier("skillExecutor") ExecutorService skillExecutor
+    ) {
+        this.llmClient = llmClient;
+        this.memoryService = memoryService;
+        this.tagResolver = tagResolver;
+        this.objectMapper = objectMapper;
+        this.urlClassifier = urlClassifier;
+        this.budget = budgets.forSkill("fused");
+        this.skillExecutor = skillExecutor;
+    }
+
+    /**
+     * @return false when the provider answer could not be parsed, so the
+     *         caller can fall back to running the skills one by one
+     */
+    public boolean apply(SkillContext context) {
+        Set<String> fields = requestedFields(context.getNeeds());
+        if (fields.isEmpty()) {
+            context.addReasoning("FusedEnrichment skipped (nothing requested)");
+            return true;
+        }
+
+        context.addReasoning("FusedEnrichment started for " + fields);
+
+        String response;
+        try {
+            response = llmClient.generate(buildPrompt(context, fields), budget);
+        } catch (LlmUnavailableException e) {
+            return unavailable(context, e);
+        }
+        return record(context, fields, response);
+    }
+
+    // Non-blocking variant; MemoryService work after the LLM call runs on the executor
+    public CompletableFuture<Boolean> applyAsync(SkillContext context, Executor executor) {
+        Set<String> fields = requestedFields(context.getNeeds());
+        if (fields.isEmpty()) {
+            context.addReasoning("FusedEnrichment skipped (nothing requested)");
+            return CompletableFuture.completedFuture(true);
+        }
+
+        context.addReasoning("FusedEnrichment started for " + fields);
+
+        return context.cancelOnClose(llmClient.generateAsync(buildPrompt(context, fields), budget))
+                .thenApplyAsync(response -> record(context, fields, response), executor)
+                .exceptionally(error -> {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error;
+                    if (cause instanceof LlmUnavailableException unavailable) {
+                        return unavailable(context, unavailable);
+                    }
+                    throw error instanceof CompletionException completion
+                            ? completion : new CompletionException(cause);
+                });
+    }
+
+    // Per-skill fallback would hit the same unavailable providers, so stop here
+    boolean unavailable(SkillContext context, LlmUnavailableException e) {
+        context.markDegraded();
+        context.addReasoning("FusedEnrichment failed: " + e.getMessage());
+        return true;
+    }
+
+    private boolean record(SkillContext context, Set<String> fields, String response) {
+        FusedResult result = parse(response);
+        if (result == null) {
+            context.addReasoning("FusedEnrichment could not parse provider response");
+            return false;
+        }
+        return record(context, fields, result);
+    }
+
+    // Shared with EnrichmentBatcher; MemoryService calls make this blocking
+    boolean record(SkillContext context, Set<String> fields, FusedResult result) {
+        if (fields.contains("title") && result.title() != null) {
+            context.putMemory("suggestedTitle", result.title().trim());
+        }
+        if (fields.contains("description") && result.description() != null) {
+            context.putMemory("description", result.description().trim());
+        }
+        List<String> finalTags = List.of();
+        if (fields.contains("tags") && result.tags() != null) {
+            List<String> candidates = result.tags().stream()
+                    .flatMap(tag -> Arrays.stream(tag.split(",")))
+                    .map(String::trim)
+                    .filter(tag -> !tag.isEmpty())
+                    .toList();
+            finalTags = tagResolver != null
+                    ? tagResolver.resolveAll(context.getUserId(), candidates, skillExecutor).join()
+                    : candidates.stream().distinct().toList();
+            context.putMemory("tags", finalTags);
+            urlClassifier.observeTags(context.getUserId(), context.getUrl(), context.getPersona(),
+                    UrlClassifier.Guess.none(), finalTags);
+        }
+        if (fields.contains("category")) {
+            String rawCategory = result.category();
+            String finalCategory =
+                    memoryService != null ? memoryService.reuseOrCreateCategory(context.getUserId(), rawCategory) : rawCategory;
+            if (finalCategory != null) {
+                context.putMemory("category", finalCategory);
+                urlClassifier.observeCategory(context.getUserId(), context.getUrl(), context.getPersona(),
+                        UrlClassifier.Guess.none(), finalCategory);
+                if (memoryService != null && !finalTags.isEmpty()) {
+                    memoryService.recordCategoryForTags(context.getUserId(), finalTags, finalCategory);
+                }
+            }
+        }
+
+        context.addReasoning("FusedEnrichment generated " + fields + " in one call");
+        return true;
+    }
+
+    Set<String> requestedFields(Map<String, Boolean> needs) {
+        // Same rule as SkillRegistry: no needs means everything
+        if (needs == null || needs.isEmpty()) {
+            return new LinkedHashSet<>(FIELDS);
+        }
+        Set<String> fields = new LinkedHashSet<>();
+        for (String field : FIELDS) {
+            if (needs.getOrDefault(field, false)) {
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
+
+    private String buildPrompt(SkillContext context, Set<String> fields) {
+        return """
+            Generate metadata for the following URL.
+
+            URL: %s
+            Persona: %s
+
+            Return a single JSON object with these fields:
+            %s
+            Rules:
+            - Output the JSON object only, no markdown and no additional text
+            """.formatted(context.getUrl(), context.getPersona(), fieldRules(fields));
+    }
+
+    // One "- "field": rule" line per requested field; also used for batched prompts
+    String fieldRules(Set<String> fields) {
+        StringBuilder rules = new StringBuilder();
+        if (fields.contains("title")) {
+            rules.append("- \"title\": concise, clear title, max 10 words, no emojis, no quotes\n");
+        }
+        if (fields.contains("description")) {
+            rules.append("- \"description\": brief, informative description of what the resource is about, max 30 words, no emojis\n");
+        }
+        if (fields.contains("tags")) {
+            rules.append("- \"tags\": array of 3-5 lowercase tags, each a single word or short phrase (max 2 words)\n");
+        }
+        if (fields.contains("category")) {
+            rules.append("- \"category\": ONE simple, clear category/folder name\n");
+        }
+        return rules.toString();
+    }
+
+    private FusedResult parse(String response) {
+        if (response == null) {
+            return null;
+        }
+        // Models like to wrap JSON in ```json fences or add a sentence around it
+        int start = response.indexOf('{');
+        int end = response.lastIndexOf('}');
+        if (start < 0 || end <= start) {
+            log.warn("Fused response contained no JSON object: {}", response);
+            return null;
+        }
+        try {
+            return objectMapper.readValue(response.substring(start, end + 1), FusedResult.class);
+        } catch (JacksonException e) {
+            log.warn("Fused response was not valid JSON: {}", response, e);
+            return null;
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record FusedResult(
+        String title,
+        String description,
+        @JsonFormat(with = JsonFormat.Feature.ACCEPT_SINGLE_VALUE_AS_ARRAY) List<String> tags,
+        String category
+    ) {
+    }
+}
@@ -1,7 +1,27 @@
 package com.keeplynk.ai.skill;
 
-import com.keeplynk.ai.agent.AgentContext;
+import com.keeplynk.ai.agent.SkillContext;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public interface Skill {
-    void apply(AgentContext context);
+    void apply(SkillContext context);
+
+    // Non-blocking variant; the default runs apply on the given executor
+    default CompletableFuture<Void> applyAsync(SkillContext context, Executor executor) {
+        return CompletableFuture.runAsync(() -> apply(context), executor);
+    }
+
+    // Key in AgentInput.needs that selects this skill
+    String needsKey();
+
+    // Memory keys this skill consumes when another selected skill produces them
+    default Set<String> reads() {
+        return Set.of();
+    }
+
+    // Memory keys this skill produces
+    Set<String> writes();
 }
@@ -0,0 +1,46 @@
+package com.keeplynk.ai.skill;
+
+import com.keeplynk.ai.llm.GenerationOptions;
+
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Generation budget per skill, from {@code llm.budget.<skill>.max-tokens},
+ * {@code .temperature} and {@code .stop}, each falling back to
+ * {@link GenerationOptions#DEFAULT}. Stop sequences are comma-separated and
+ * written with {@code \n} for a line break.
+ */
+@Component
+public class SkillBudgets {
+
+    private final Environment env;
+    private final Map<String, GenerationOptions> budgets = new ConcurrentHashMap<>();
+
+    public SkillBudgets(Environment env) {
+        this.env = env;
+    }
+
+    public GenerationOptions forSkill(String skill) {
+        return budgets.computeIfAbsent(skill, this::load);
+    }
+
+    private GenerationOptions load(String skill) {
+        GenerationOptions defaults = GenerationOptions.DEFAULT;
+        String prefix = "llm.budget." + skill + ".";
+        String stop = env.getProperty(prefix + "stop");
+
+        return new GenerationOptions(
+            env.getProperty(prefix + "max-tokens", Integer.class, defaults.maxTokens()),
+            stop == null ? defaults.stop() : Arrays.stream(stop.split(","))
+                    .map(sequence -> sequence.replace("\\n", "\n"))
+                    .filter(sequence -> !sequence.isEmpty())
+                    .toList(),
+            env.getProperty(prefix + "temperature", Double.class, defaults.temperature())
+        );
+    }
+}
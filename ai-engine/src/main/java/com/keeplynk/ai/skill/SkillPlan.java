@@ -0,0 +1,22 @@
+package com.keeplynk.ai.skill;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Skills selected for one request, in an order where every skill comes after
+ * the skills it depends on.
+ *
+ * @param skills       selected skills in topological order
+ * @param dependencies for each skill, the selected skills producing what it reads
+ */
+public record SkillPlan(List<Skill> skills, Map<Skill, List<Skill>> dependencies) {
+
+    public List<Skill> dependenciesOf(Skill skill) {
+        return dependencies.getOrDefault(skill, List.of());
+    }
+
+    public boolean isEmpty() {
+        return skills.isEmpty();
+    }
+}
@@ -0,0 +1,117 @@
+package com.keeplynk.ai.skill;
+
+import com.keeplynk.ai.agent.AgentContext;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Indexes every {@link Skill} bean by its {@code needs} key and by the memory
+ * keys it writes, and turns a request's {@code needs} into a {@link SkillPlan}.
+ */
+@Component
+public class SkillRegistry {
+
+    private final List<Skill> skills;
+    private final Map<String, Skill> byNeedsKey = new LinkedHashMap<>();
+    private final Map<String, Skill> writers = new HashMap<>();
+
+    public SkillRegistry(List<Skill> skills) {
+        this.skills = List.copyOf(skills);
+
+        for (Skill skill : this.skills) {
+            Skill previous = byNeedsKey.put(skill.needsKey(), skill);
+            if (previous != null) {
+                throw new IllegalStateException("Skills " + name(previous) + " and " + name(skill)
+                        + " both claim needs key '" + skill.needsKey() + "'");
+            }
+            for (String key : skill.writes()) {
+                Skill other = writers.put(key, skill);
+                if (other != null) {
+                    throw new IllegalStateException("Skills " + name(other) + " and " + name(skill)
+                            + " both write memory key '" + key + "'");
+                }
+            }
+        }
+
+        // Fail at startup rather than per request if the declarations form a cycle
+        order(this.skills);
+    }
+
+    public List<Skill> getSkills() {
+        return skills;
+    }
+
+    /**
+     * Selects the skills requested by {@code needs} (all of them when needs is
+     * absent, for backward compatibility) and orders them by their reads/writes.
+     */
+    public SkillPlan plan(AgentContext context) {
+        Map<String, Boolean> needs = context.getNeeds();
+
+        List<Skill> selected;
+        if (needs == null || needs.isEmpty()) {
+            selected = skills;
+        } else {
+            // Conditional execution based on needs (Auto Organise feature)
+            selected = new ArrayList<>();
+            for (Map.Entry<String, Skill> entry : byNeedsKey.entrySet()) {
+                String skillName = name(entry.getValue());
+                if (needs.getOrDefault(entry.getKey(), false)) {
+                    context.addReasoning("Executing " + skillName + " (requested by needs)");
+                    selected.add(entry.getValue());
+                } else {
+                    context.addReasoning("Skipping " + skillName + " (not needed)");
+                }
+            }
+        }
+
+        return order(selected);
+    }
+
+    private SkillPlan order(List<Skill> selected) {
+        Map<Skill, List<Skill>> dependencies = new IdentityHashMap<>();
+        for (Skill skill : selected) {
+            List<Skill> deps = new ArrayList<>();
+            for (String key : skill.reads()) {
+                Skill writer = writers.get(key);
+                // A read is soft: if nobody selected produces the key, the skill runs without it
+                if (writer != null && writer != skill && selected.contains(writer) && !deps.contains(writer)) {
+                    deps.add(writer);
+                }
+            }
+            dependencies.put(skill, deps);
+        }
+
+        // Kahn's algorithm, keeping @Order among skills that are ready at the same time
+        List<Skill> ordered = new ArrayList<>(selected.size());
+        List<Skill> remaining = new ArrayList<>(selected);
+        while (!remaining.isEmpty()) {
+            Skill next = null;
+            for (Skill candidate : remaining) {
+                if (ordered.containsAll(dependencies.get(candidate))) {
+                    next = candidate;
+                    break;
+                }
+            }
+            if (next == null) {
+                throw new IllegalStateException("Cyclic skill dependencies between "
+                        + remaining.stream().map(SkillRegistry::name).toList());
+            }
+            ordered.add(next);
+            remaining.remove(next);
+        }
+
+        return new SkillPlan(List.copyOf(ordered), dependencies);
+    }
+
+    private static String name(Skill skill) {
+        return skill.getClass().getSimpleName();
+    }
+}
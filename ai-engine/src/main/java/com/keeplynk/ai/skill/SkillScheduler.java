@@ -0,0 +1,211 @@
+package com.keeplynk.ai.skill;
+
+import com.keeplynk.ai.agent.AgentContext;
+import com.keeplynk.ai.agent.SkillContext;
+import com.keeplynk.ai.llm.LlmUnavailableException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs a {@link SkillPlan}. In concurrent mode every skill starts as soon as
+ * the skills it reads from have finished, so independent skills overlap and a
+ * consumer such as {@link CategorySkill} waits only for its producers.
+ *
+ * <p>Each skill runs against its own {@link AgentContext.SkillView}, closed
+ * once the scheduler stops waiting: a skill that misses the deadline can no
+ * longer change the context, and its provider call is cancelled.
+ */
+@Component
+public class SkillScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(SkillScheduler.class);
+
+    private final ExecutorService skillExecutor;
+
+    public SkillScheduler(@Qualifier("skillExecutor") ExecutorService skillExecutor) {
+        this.skillExecutor = skillExecutor;
+    }
+
+    // A skill that finds no LLM provider is recorded and skipped; other failures propagate
+    public void runSequentially(SkillPlan plan, AgentContext context) {
+        for (Skill skill : plan.skills()) {
+            try {
+                skill.apply(context);
+            } catch (LlmUnavailableException e) {
+                unavailable(skill, context, e);
+            }
+        }
+    }
+
+    /**
+     * Runs the plan as a dependency graph on virtual threads and waits at most
+     * {@code timeoutMs} for the whole graph. A skill that fails or times out is
+     * recorded in the reasoning trail; the results of the others are kept.
+     */
+    public void runConcurrently(SkillPlan plan, AgentContext context, long timeoutMs) {
+        Map<Skill, CompletableFuture<Void>> running = new IdentityHashMap<>();
+        Map<Skill, CompletableFuture<Void>> workers = new ConcurrentHashMap<>();
+        Map<Skill, AgentContext.SkillView> views = new IdentityHashMap<>();
+        AtomicBoolean abandoned = new AtomicBoolean();
+
+        for (Skill skill : plan.skills()) {
+            AgentContext.SkillView view = context.forSkill();
+            views.put(skill, view);
+            CompletableFuture<?>[] producers = plan.dependenciesOf(skill).stream()
+                    .map(running::get)
+                    .toArray(CompletableFuture[]::new);
+
+            // A failed producer must not block its consumers; they just won't find its output
+            CompletableFuture<Void> task = CompletableFuture.allOf(producers)
+                    .handle((ignored, error) -> null)
+                    .thenCompose(ignored -> {
+                        if (abandoned.get()) {
+                            return CompletableFuture.<Void>failedFuture(new CancellationException());
+                        }
+                        CompletableFuture<Void> worker = submit(skill, view);
+                        workers.put(skill, worker);
+                        // abandon() may have gone over workers between the check above and the put
+                        if (abandoned.get()) {
+                            worker.cancel(true);
+                        }
+                        return worker;
+                    });
+            running.put(skill, task);
+        }
+
+        try {
+            CompletableFuture.allOf(running.values().toArray(CompletableFuture[]::new))
+                    .get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abandon(running, workers, views, abandoned);
+            context.markDegraded();
+            context.addReasoning("Skill execution interrupted");
+            return;
+        } catch (TimeoutException | ExecutionException e) {
+            // Inspected per skill below
+        }
+
+        abandon(running, workers, views, abandoned);
+
+        for (Skill skill : plan.skills()) {
+            report(skill, running.get(skill), context, timeoutMs);
+        }
+    }
+
+    /**
+     * Non-blocking variant used by the async request path. In sequential mode
+     * each skill starts once the one before it has finished, in concurrent
+     * mode once its producers have. Either way the future completes after at
+     * most {@code timeoutMs}; a skill that failed or is still running is
+     * recorded as in {@link #runConcurrently}, and the others keep their
+     * results.
+     */
+    public CompletableFuture<Void> runAsync(SkillPlan plan, AgentContext context, long timeoutMs, boolean concurrent) {
+        Map<Skill, CompletableFuture<Void>> running = new IdentityHashMap<>();
+        Map<Skill, AgentContext.SkillView> views = new IdentityHashMap<>();
+        CompletableFuture<Void> previous = CompletableFuture.completedFuture(null);
+        for (Skill skill : plan.skills()) {
+            CompletableFuture<?>[] producers = concurrent
+                    ? plan.dependenciesOf(skill).stream().map(running::get).toArray(CompletableFuture[]::new)
+                    : new CompletableFuture<?>[] {previous};
+
+            AgentContext.SkillView view = context.forSkill();
+            views.put(skill, view);
+            CompletableFuture<Void> task = CompletableFuture.allOf(producers)
+                    .handle((ignored, error) -> null)
+                    .thenCompose(ignored -> view.isClosed()
+                            ? CompletableFuture.<Void>failedFuture(new CancellationException())
+                            : skill.applyAsync(view, skillExecutor));
+            running.put(skill, task);
+            previous = task;
+        }
+
+        return CompletableFuture.allOf(running.values().toArray(CompletableFuture[]::new))
+                .completeOnTimeout(null, timeoutMs, TimeUnit.MILLISECONDS)
+                .handle((ignored, error) -> {
+                    // Before reporting, so a late skill cannot write past the timeout entry
+                    views.values().forEach(AgentContext.SkillView::close);
+                    for (Skill skill : plan.skills()) {
+                        report(skill, running.get(skill), context, timeoutMs);
+                    }
+                    return null;
+                });
+    }
+
+    private void report(Skill skill, CompletableFuture<Void> task, AgentContext context, long timeoutMs) {
+        String skillName = skill.getClass().getSimpleName();
+
+        if (!task.isDone() || task.isCancelled()) {
+            task.cancel(true);
+            context.markDegraded();
+            log.warn("{} did not finish within {} ms", skillName, timeoutMs);
+            context.addReasoning(skillName + " timed out after " + timeoutMs + " ms");
+        } else if (task.isCompletedExceptionally()) {
+            Throwable cause = task.exceptionNow();
+            if (cause instanceof LlmUnavailableException unavailable) {
+                unavailable(skill, context, unavailable);
+                return;
+            }
+            context.markDegraded();
+            log.error("{} failed", skillName, cause);
+            context.addReasoning(skillName + " failed: " + cause.getMessage());
+        }
+    }
+
+    private void unavailable(Skill skill, AgentContext context, LlmUnavailableException e) {
+        String skillName = skill.getClass().getSimpleName();
+        context.markDegraded();
+        log.warn("{} failed: {}", skillName, e.getMessage());
+        context.addReasoning(skillName + " failed: " + e.getMessage());
+    }
+
+    private void abandon(
+        Map<Skill, CompletableFuture<Void>> running,
+        Map<Skill, CompletableFuture<Void>> workers,
+        Map<Skill, AgentContext.SkillView> views,
+        AtomicBoolean abandoned
+    ) {
+        views.values().forEach(AgentContext.SkillView::close);
+        // Stop skills that have not started yet, then the ones still in flight. The flag is
+        // set before workers is read, so a worker put after that read sees it and cancels itself
+        abandoned.set(true);
+        running.values().forEach(task -> task.cancel(true));
+        workers.values().forEach(worker -> worker.cancel(true));
+    }
+
+    private CompletableFuture<Void> submit(Skill skill, SkillContext context) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        Future<?> worker = skillExecutor.submit(() -> {
+            try {
+                skill.apply(context);
+                result.complete(null);
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+        // Interrupt the virtual thread (and its blocking LLM call) when the request gives up
+        result.whenComplete((ignored, error) -> {
+            if (result.isCancelled()) {
+                worker.cancel(true);
+            }
+        });
+        return result;
+    }
+}
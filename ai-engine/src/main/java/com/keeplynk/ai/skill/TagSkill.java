@@ -1,33 +1,105 @@
 package com.keeplynk.ai.skill;
 
-import com.keeplynk.ai.agent.AgentContext;
+import com.keeplynk.ai.agent.SkillContext;
+import com.keeplynk.ai.llm.GenerationOptions;
 import com.keeplynk.ai.llm.LlmClient;
-import com.keeplynk.ai.memory.MemoryService;
+import com.keeplynk.ai.llm.TokenSink;
+import com.keeplynk.ai.memory.TagResolver;
+import com.keeplynk.ai.memory.UrlClassifier;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
 
 @Component
 @Order(3)
 public class TagSkill implements Skill {
 
+    // The prompt asks for 3-5 tags; anything after the fifth is not read
+    private static final int MAX_TAGS = 5;
+
     private final LlmClient llmClient;
-    private final MemoryService memoryService;
+    private final TagResolver tagResolver;
+    private final UrlClassifier urlClassifier;
+    private final GenerationOptions budget;
+    // Resolves the tags of the blocking path concurrently
+    private final ExecutorService skillExecutor;
 
-    public TagSkill(LlmClient llmClient, @Autowired(required = false) MemoryService memoryService) {
+    public TagSkill(
+        LlmClient llmClient,
+        @Autowired(required = false) TagResolver tagResolver,
+        UrlClassifier urlClassifier,
+        SkillBudgets budgets,
+        @Qualifier("skillExecutor") ExecutorService skillExecutor
+    ) {
         this.llmClient = llmClient;
-        this.memoryService = memoryService;
+        this.tagResolver = tagResolver;
+        this.urlClassifier = urlClassifier;
+        this.budget = budgets.forSkill("tags");
+        this.skillExecutor = skillExecutor;
+    }
+
+    @Override
+    public String needsKey() {
+        return "tags";
+    }
+
+    @Override
+    public Set<String> writes() {
+        return Set.of("tags");
+    }
+
+    @Override
+    public void apply(SkillContext context) {
+        context.addReasoning("TagSkill started");
+
+        UrlClassifier.Guess<List<String>> guess =
+                urlClassifier.guessTags(context.getUserId(), context.getUrl(), context.getPersona());
+        if (urlClassifier.answers("tags", guess)) {
+            predicted(context, guess, skillExecutor).join();
+            return;
+        }
+
+        String response = llmClient.generate(prompt(context), budget);
+        List<String> finalTags = resolve(context, Arrays.asList(response.split(",")), skillExecutor).join();
+        urlClassifier.observeTags(context.getUserId(), context.getUrl(), context.getPersona(), guess, finalTags);
+        record(context, finalTags);
     }
 
     @Override
-    public void apply(AgentContext context) {
+    public CompletableFuture<Void> applyAsync(SkillContext context, Executor executor) {
         context.addReasoning("TagSkill started");
 
-        String prompt = """
+        UrlClassifier.Guess<List<String>> guess =
+                urlClassifier.guessTags(context.getUserId(), context.getUrl(), context.getPersona());
+        if (urlClassifier.answers("tags", guess)) {
+            return predicted(context, guess, executor);
+        }
+
+        // Each tag is resolved as soon as it has streamed in; the stream is cut once
+        // MAX_TAGS tags are complete
+        TagStream tags = new TagStream(tag -> reuse(context, tag, executor));
+        return context.cancelOnClose(llmClient.generateStream(prompt(context), budget, tags))
+                .thenCompose(ignored -> tags.finish())
+                .thenAccept(finalTags -> {
+                    urlClassifier.observeTags(context.getUserId(), context.getUrl(), context.getPersona(),
+                            guess, finalTags);
+                    record(context, finalTags);
+                });
+    }
+
+    private String prompt(SkillContext context) {
+        return """
             Generate relevant tags for the following URL.
 
             URL: %s
@@ -40,21 +112,89 @@ public class TagSkill implements Skill {
             - Separate tags with commas
             - Output tags only in format: tag1, tag2, tag3
             """.formatted(context.getUrl(), context.getPersona());
+    }
 
-        String response = llmClient.generate(prompt);
-
-        List<String> candidateTags = Arrays.stream(response.split(","))
+    // All candidates resolved concurrently, in order and without duplicates
+    private CompletableFuture<List<String>> resolve(SkillContext context, List<String> candidates, Executor executor) {
+        List<String> candidateTags = candidates.stream()
                 .map(String::trim)
                 .filter(tag -> !tag.isEmpty())
                 .toList();
 
-        List<String> finalTags = candidateTags.stream()
-                .map(tag -> memoryService != null ? memoryService.reuseOrCreate(tag) : tag)
-                .distinct()
-                .toList();
+        if (tagResolver == null) {
+            return CompletableFuture.completedFuture(candidateTags.stream().distinct().toList());
+        }
+        return tagResolver.resolveAll(context.getUserId(), candidateTags, executor);
+    }
+
+    private CompletableFuture<String> reuse(SkillContext context, String tag, Executor executor) {
+        return tagResolver != null
+                ? tagResolver.resolve(context.getUserId(), tag, executor)
+                : CompletableFuture.completedFuture(tag);
+    }
+
+    // Confident local prediction; the resolver still counts the usage
+    private CompletableFuture<Void> predicted(SkillContext context, UrlClassifier.Guess<List<String>> guess,
+            Executor executor) {
+        context.addReasoning("TagSkill predicted tags locally (confidence %.2f)".formatted(guess.confidence()));
+        context.markPredicted("tags");
+        return resolve(context, guess.value(), executor).thenAccept(finalTags -> record(context, finalTags));
+    }
 
-        context.getMemory().put("tags", finalTags);
+    private void record(SkillContext context, List<String> finalTags) {
+        context.putMemory("tags", finalTags);
 
         context.addReasoning("TagSkill inferred and reused tags");
     }
+
+    /**
+     * Splits streamed text into tags at commas and starts resolving each one
+     * as soon as it is complete. Fed by the stream reader thread only;
+     * {@link #finish} runs after the stream has completed.
+     */
+    private static final class TagStream implements TokenSink {
+
+        private final Function<String, CompletableFuture<String>> resolver;
+        private final StringBuilder pending = new StringBuilder();
+        private final List<CompletableFuture<String>> resolved = new ArrayList<>();
+
+        TagStream(Function<String, CompletableFuture<String>> resolver) {
+            this.resolver = resolver;
+        }
+
+        @Override
+        public boolean accept(String chunk) {
+            for (int i = 0; i < chunk.length(); i++) {
+                char c = chunk.charAt(i);
+                if (c != ',') {
+                    pending.append(c);
+                    continue;
+                }
+                emit();
+                if (resolved.size() >= MAX_TAGS) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        CompletableFuture<List<String>> finish() {
+            if (resolved.size() < MAX_TAGS) {
+                emit();
+            }
+            return CompletableFuture.allOf(resolved.toArray(CompletableFuture[]::new))
+                    .thenApply(ignored -> resolved.stream()
+                            .map(CompletableFuture::join)
+                            .distinct()
+                            .toList());
+        }
+
+        private void emit() {
+            String tag = pending.toString().trim();
+            pending.setLength(0);
+            if (!tag.isEmpty()) {
+                resolved.add(resolver.apply(tag));
+            }
+        }
+    }
 }
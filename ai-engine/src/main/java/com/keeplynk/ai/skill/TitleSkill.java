@@ -1,26 +1,61 @@
 package com.keeplynk.ai.skill;
 
-import com.keeplynk.ai.agent.AgentContext;
+import com.keeplynk.ai.agent.SkillContext;
+import com.keeplynk.ai.llm.GenerationOptions;
 import com.keeplynk.ai.llm.LlmClient;
 
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 @Component
 @Order(1)
 public class TitleSkill implements Skill {
 
     private final LlmClient llmClient;
+    private final GenerationOptions budget;
 
-    public TitleSkill(LlmClient llmClient) {
+    public TitleSkill(LlmClient llmClient, SkillBudgets budgets) {
         this.llmClient = llmClient;
+        this.budget = budgets.forSkill("title");
     }
 
     @Override
-    public void apply(AgentContext context) {
+    public String needsKey() {
+        return "title";
+    }
+
+    @Override
+    public Set<String> writes() {
+        return Set.of("suggestedTitle");
+    }
+
+    @Override
+    public void apply(SkillContext context) {
         context.addReasoning("TitleSkill started");
-        
-        String prompt = """
+
+        String title = llmClient.generate(prompt(context), budget);
+        record(context, title);
+    }
+
+    @Override
+    public CompletableFuture<Void> applyAsync(SkillContext context, Executor executor) {
+        context.addReasoning("TitleSkill started");
+
+        // A title is complete at its first line break, so stop the stream there
+        StringBuilder received = new StringBuilder();
+        return context.cancelOnClose(llmClient.generateStream(prompt(context), budget, chunk -> {
+                    received.append(chunk);
+                    return received.toString().strip().indexOf('\n') < 0;
+                }))
+                .thenAccept(title -> record(context, title));
+    }
+
+    private String prompt(SkillContext context) {
+        return """
         		Generate a concise, clear title for the following URL.
 
         		URL: %s
@@ -32,10 +67,11 @@ public class TitleSkill implements Skill {
         		- No quotes
         		- Output title only
         		""".formatted(context.getUrl(), context.getPersona());
-        
+    }
 
-        String title = llmClient.generate(prompt);
-        context.getMemory().put("suggestedTitle", title);
+    private void record(SkillContext context, String response) {
+        String title = response.strip().lines().findFirst().orElse("").strip();
+        context.putMemory("suggestedTitle", title);
         
         context.addReasoning("TitleSkill generated suggestedTitle");
     }
@@ -0,0 +1,384 @@
+package com.keeplynk.ai.store;
+
+import com.keeplynk.ai.agent.EnrichmentKey;
+import com.keeplynk.ai.llm.LlmClient;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+
+/**
+ * Enrichment results persisted in a memory-mapped, append-only file, so a
+ * restarted container answers repeat URLs without an LLM call or a Mongo read.
+ *
+ * <p>Layout: a header ({@code magic, format, end offset}) followed by records
+ * {@code [length][promptVersion][createdAt][keyLength][key][valueLength][value]}.
+ * The header end offset is only advanced after a record is fully written, so a
+ * crash mid-append simply drops that record. The heap holds only a
+ * key hash to offset index; payloads stay in the page cache. When the file is
+ * full, live records are compacted into a fresh file.
+ */
+@Component
+public class EnrichmentStore {
+
+    private static final Logger log = LoggerFactory.getLogger(EnrichmentStore.class);
+
+    private static final int MAGIC = 0x4B4C4553; // "KLES"
+    private static final int FORMAT = 1;
+    private static final int HEADER_BYTES = 12;
+    private static final int END_OFFSET_POSITION = 8;
+    // length, promptVersion, createdAt, keyLength, valueLength
+    private static final int RECORD_OVERHEAD = 4 + 4 + 8 + 4 + 4;
+
+    /**
+     * Entry of a stored result listing the keys that were predicted locally
+     * rather than produced by the LLM; seen by {@link #forEach} only.
+     */
+    public static final String PREDICTED = "_predicted";
+
+    private static final TypeReference<Map<String, Object>> RESULT_TYPE = new TypeReference<>() {
+    };
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${enrichment.store.enabled:true}")
+    private boolean enabled;
+
+    // Point this at a mounted volume so it survives redeploys, not just restarts
+    @Value("${enrichment.store.path:./data/enrichment.store}")
+    private String path;
+
+    @Value("${enrichment.store.capacity-bytes:67108864}")
+    private int capacityBytes;
+
+    // Bump whenever a skill prompt changes; older entries are then ignored
+    @Value("${enrichment.store.prompt-version:1}")
+    private int promptVersion;
+
+    @Value("${enrichment.store.ttl-days:30}")
+    private long ttlDays;
+
+    private final ConcurrentHashMap<Long, Integer> index = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile MappedByteBuffer buffer;
+    private int end;
+
+    public EnrichmentStore(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    void open() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Path file = Path.of(path);
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            buffer = map(file);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT) {
+                reset();
+            } else {
+                end = buffer.getInt(END_OFFSET_POSITION);
+                rebuildIndex();
+            }
+            log.info("Enrichment store opened at {} with {} entries", file.toAbsolutePath(), index.size());
+        } catch (IOException | RuntimeException e) {
+            log.error("Enrichment store unavailable at {}, continuing without it", path, e);
+            buffer = null;
+            index.clear();
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        lock.writeLock().lock();
+        try {
+            if (buffer != null) {
+                buffer.force();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Optional<Map<String, Object>> get(EnrichmentKey key) {
+        if (buffer == null) {
+            return Optional.empty();
+        }
+        String keyString = key.asString();
+
+        lock.readLock().lock();
+        try {
+            // A failed put may have disabled the store since the check above
+            if (buffer == null) {
+                return Optional.empty();
+            }
+            Integer offset = index.get(hash(keyString));
+            if (offset == null) {
+                return Optional.empty();
+            }
+            Record record = read(offset);
+            if (!record.key().equals(keyString) || !isLive(record)) {
+                return Optional.empty();
+            }
+            Map<String, Object> result = objectMapper.readValue(record.value(), RESULT_TYPE);
+            result.remove(PREDICTED);
+            return Optional.of(result);
+        } catch (RuntimeException e) {
+            // Not JSON, or a record whose lengths do not add up
+            log.warn("Dropping unreadable enrichment store entry for {}", key.canonicalUrl(), e);
+            index.remove(hash(keyString));
+            return Optional.empty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void put(EnrichmentKey key, Map<String, Object> result, Set<String> predicted) {
+        if (buffer == null) {
+            return;
+        }
+        // Failure placeholders must not outlive the outage that produced them
+        for (Object value : result.values()) {
+            if (value instanceof String text && LlmClient.isFailure(text)) {
+                return;
+            }
+        }
+
+        Map<String, Object> stored = result;
+        if (!predicted.isEmpty()) {
+            stored = new HashMap<>(result);
+            stored.put(PREDICTED, new TreeSet<>(predicted));
+        }
+        byte[] keyBytes = key.asString().getBytes(StandardCharsets.UTF_8);
+        byte[] valueBytes = objectMapper.writeValueAsBytes(stored);
+        int length = RECORD_OVERHEAD + keyBytes.length + valueBytes.length;
+        if (length > capacityBytes - HEADER_BYTES) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (buffer == null) {
+                return;
+            }
+            if (end + length > capacityBytes) {
+                compact();
+                if (end + length > capacityBytes) {
+                    log.warn("Enrichment store still full after compaction, clearing it");
+                    reset();
+                }
+            }
+            int offset = end;
+            write(offset, length, promptVersion, System.currentTimeMillis(), keyBytes, valueBytes);
+            end = offset + length;
+            buffer.putInt(END_OFFSET_POSITION, end);
+            index.put(hash(key.asString()), offset);
+        } catch (IOException e) {
+            log.error("Enrichment store compaction failed, disabling it", e);
+            buffer = null;
+            index.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Visits every live entry, e.g. to warm up models from past results.
+     * Results include their {@link #PREDICTED} keys, if any. Unreadable
+     * entries are skipped.
+     */
+    public void forEach(BiConsumer<EnrichmentKey, Map<String, Object>> action) {
+        if (buffer == null) {
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            if (buffer == null) {
+                return;
+            }
+            for (int offset : index.values()) {
+                Map<String, Object> result;
+                EnrichmentKey key;
+                try {
+                    Record record = read(offset);
+                    if (!isLive(record)) {
+                        continue;
+                    }
+                    result = objectMapper.readValue(record.value(), RESULT_TYPE);
+                    key = EnrichmentKey.parse(record.key());
+                } catch (RuntimeException e) {
+                    continue;
+                }
+                action.accept(key, result);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    private MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, capacityBytes);
+        }
+    }
+
+    private void reset() {
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, FORMAT);
+        end = HEADER_BYTES;
+        buffer.putInt(END_OFFSET_POSITION, end);
+        index.clear();
+    }
+
+    private void rebuildIndex() {
+        if (end < HEADER_BYTES || end > capacityBytes) {
+            reset();
+            return;
+        }
+        int offset = HEADER_BYTES;
+        while (offset < end) {
+            // The end offset may reach disk before the record it covers, so the body can be garbage
+            Record record;
+            try {
+                int length = buffer.getInt(offset);
+                if (length < RECORD_OVERHEAD || length > end - offset) {
+                    throw new IllegalStateException("record length " + length);
+                }
+                record = read(offset);
+            } catch (RuntimeException e) {
+                log.warn("Enrichment store truncated at corrupt record offset {}: {}", offset, e.getMessage());
+                end = offset;
+                buffer.putInt(END_OFFSET_POSITION, end);
+                return;
+            }
+            if (isLive(record)) {
+                index.put(hash(record.key()), offset);
+            }
+            offset += record.length();
+        }
+    }
+
+    // Copies live records into a new file and swaps it in; caller holds the write lock
+    private void compact() throws IOException {
+        Path file = Path.of(path);
+        Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+        Files.deleteIfExists(compacted);
+
+        MappedByteBuffer target = map(compacted);
+        target.putInt(0, MAGIC);
+        target.putInt(4, FORMAT);
+        int targetEnd = HEADER_BYTES;
+        ConcurrentHashMap<Long, Integer> targetIndex = new ConcurrentHashMap<>();
+
+        for (Map.Entry<Long, Integer> entry : index.entrySet()) {
+            Record record;
+            try {
+                record = read(entry.getValue());
+            } catch (RuntimeException e) {
+                continue;
+            }
+            if (!isLive(record)) {
+                continue;
+            }
+            byte[] copy = new byte[record.length()];
+            buffer.get(entry.getValue(), copy);
+            target.put(targetEnd, copy);
+            targetIndex.put(entry.getKey(), targetEnd);
+            targetEnd += record.length();
+        }
+        target.putInt(END_OFFSET_POSITION, targetEnd);
+        target.force();
+
+        Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        buffer = target;
+        end = targetEnd;
+        index.clear();
+        index.putAll(targetIndex);
+        log.info("Compacted enrichment store to {} entries ({} bytes)", index.size(), end);
+    }
+
+    private void write(int offset, int length, int version, long createdAt, byte[] key, byte[] value) {
+        int position = offset;
+        buffer.putInt(position, length);
+        buffer.putInt(position += 4, version);
+        buffer.putLong(position += 4, createdAt);
+        buffer.putInt(position += 8, key.length);
+        buffer.put(position += 4, key);
+        buffer.putInt(position += key.length, value.length);
+        buffer.put(position + 4, value);
+    }
+
+    // Throws IllegalStateException when the key and value do not fit the record length
+    private Record read(int offset) {
+        int position = offset;
+        int length = buffer.getInt(position);
+        int version = buffer.getInt(position += 4);
+        long createdAt = buffer.getLong(position += 4);
+        int keyLength = buffer.getInt(position += 8);
+        if (keyLength < 0 || keyLength > length - RECORD_OVERHEAD) {
+            throw new IllegalStateException("key length " + keyLength + " in a record of " + length);
+        }
+        byte[] key = new byte[keyLength];
+        buffer.get(position += 4, key);
+        int valueLength = buffer.getInt(position += keyLength);
+        if (valueLength != length - RECORD_OVERHEAD - keyLength) {
+            throw new IllegalStateException("value length " + valueLength + " in a record of " + length);
+        }
+        byte[] value = new byte[valueLength];
+        buffer.get(position + 4, value);
+        return new Record(length, version, createdAt, new String(key, StandardCharsets.UTF_8), value);
+    }
+
+    private boolean isLive(Record record) {
+        return record.promptVersion() == promptVersion
+                && System.currentTimeMillis() - record.createdAt() < Duration.ofDays(ttlDays).toMillis();
+    }
+
+    // 64-bit FNV-1a; collisions are caught by comparing the stored key
+    private static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    private record Record(int length, int promptVersion, long createdAt, String key, byte[] value) {
+    }
+}
@@ -0,0 +1,28 @@
+package com.keeplynk.ai.agent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class UrlCanonicalizerTest {
+
+	@Test
+	void lowercasesHostAndDropsTrackingParams() {
+		assertEquals("https://github.com/foo?a=1",
+				UrlCanonicalizer.canonicalize("https://GitHub.com/foo/?utm_source=x&a=1#frag"));
+		assertEquals("https://youtube.com/watch?v=abc",
+				UrlCanonicalizer.canonicalize("https://youtube.com/watch?v=abc&utm_medium=m&fbclid=1"));
+	}
+
+	@Test
+	void normalizesDefaultPortAndTrailingSlash() {
+		assertEquals("https://github.com/foo", UrlCanonicalizer.canonicalize("https://github.com:443/foo/"));
+		assertEquals("http://x.com", UrlCanonicalizer.canonicalize("http://x.com/"));
+	}
+
+	@Test
+	void leavesUnparseableInputAlone() {
+		assertEquals("not a url", UrlCanonicalizer.canonicalize(" not a url "));
+	}
+
+}
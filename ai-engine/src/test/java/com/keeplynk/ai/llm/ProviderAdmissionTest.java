@@ -0,0 +1,45 @@
+package com.keeplynk.ai.llm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+import org.junit.jupiter.api.Test;
+
+class ProviderAdmissionTest {
+
+	@Test
+	void parsesRateLimitResetDurations() {
+		assertEquals(Duration.ofMillis(179_560), ProviderAdmission.parseDuration("2m59.56s"));
+		assertEquals(Duration.ofMillis(7_660), ProviderAdmission.parseDuration("7.66s"));
+		assertEquals(Duration.ofMillis(120), ProviderAdmission.parseDuration("120ms"));
+		assertEquals(Duration.ofMinutes(62), ProviderAdmission.parseDuration("1h2m"));
+		assertEquals(Duration.ZERO, ProviderAdmission.parseDuration(null));
+		assertEquals(Duration.ZERO, ProviderAdmission.parseDuration("soon"));
+	}
+
+	@Test
+	void parsesRetryAfterSecondsAndDates() {
+		assertEquals(Duration.ofSeconds(30), ProviderAdmission.retryAfter(" 30 "));
+
+		String inAMinute = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(60));
+		Duration untilDate = ProviderAdmission.retryAfter(inAMinute);
+		assertTrue(untilDate.compareTo(Duration.ofSeconds(55)) > 0 && untilDate.compareTo(Duration.ofSeconds(60)) <= 0,
+				untilDate.toString());
+
+		String past = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).minusHours(1));
+		assertEquals(Duration.ZERO, ProviderAdmission.retryAfter(past));
+	}
+
+	@Test
+	void ignoresMissingOrInvalidRetryAfter() {
+		assertNull(ProviderAdmission.retryAfter(null));
+		assertNull(ProviderAdmission.retryAfter("  "));
+		assertNull(ProviderAdmission.retryAfter("later"));
+	}
+}
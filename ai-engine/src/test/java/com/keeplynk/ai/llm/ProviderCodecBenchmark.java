@@ -0,0 +1,99 @@
+package com.keeplynk.ai.llm;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Map-based decoding and request building, as the provider clients used to
+ * do it, against streaming field extraction and a cached typed writer.
+ * Run {@link #main} (or JMH with {@code -prof gc}) to see time and
+ * allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProviderCodecBenchmark {
+
+	private ObjectMapper objectMapper;
+	private ObjectWriter requestWriter;
+	private byte[] completion;
+	private String prompt;
+
+	@Setup
+	public void setup() {
+		objectMapper = JsonMapper.builder().build();
+		requestWriter = objectMapper.writerFor(GroqApi.ChatRequest.class);
+		prompt = "Generate a concise title for this resource.\nURL: https://github.com/spring-projects/spring-boot\n".repeat(4);
+
+		// Shaped like a real Groq completion: the text is a small part of the body
+		completion = """
+			{"id":"chatcmpl-7f3a","object":"chat.completion","created":1760000000,
+			 "model":"llama-3.3-70b-versatile",
+			 "choices":[{"index":0,"message":{"role":"assistant","content":"Spring Boot: production-ready Spring applications"},
+			   "logprobs":null,"finish_reason":"stop"}],
+			 "usage":{"queue_time":0.021,"prompt_tokens":412,"prompt_time":0.031,"completion_tokens":96,
+			   "completion_time":0.144,"total_tokens":508,"total_time":0.175},
+			 "system_fingerprint":"fp_3f3b593e33","x_groq":{"id":"req_01k7"}}
+			""".getBytes();
+	}
+
+	@Benchmark
+	@SuppressWarnings("unchecked")
+	public String decodeMap() {
+		Map<String, Object> body = objectMapper.readValue(completion, Map.class);
+		List<Map<String, Object>> choices = (List<Map<String, Object>>) body.get("choices");
+		Map<String, Object> message = (Map<String, Object>) choices.get(0).get("message");
+		return message.get("content").toString();
+	}
+
+	@Benchmark
+	public String decodeStreaming() {
+		return ResponseFields.require("groq", objectMapper, completion, GroqApi.CONTENT);
+	}
+
+	@Benchmark
+	public byte[] encodeMap() {
+		Map<String, Object> body = Map.of(
+			"model", GroqApi.MODEL,
+			"messages", List.of(Map.of("role", "user", "content", prompt)),
+			"temperature", 0.7,
+			"max_tokens", 500,
+			"stream", false
+		);
+		return objectMapper.writeValueAsBytes(body);
+	}
+
+	@Benchmark
+	public byte[] encodeTyped() {
+		return requestWriter.writeValueAsBytes(GroqApi.ChatRequest.of(prompt, GenerationOptions.DEFAULT, false));
+	}
+
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder()
+				.include(ProviderCodecBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build()).run();
+	}
+}
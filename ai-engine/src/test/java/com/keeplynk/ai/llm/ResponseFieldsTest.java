@@ -0,0 +1,43 @@
+package com.keeplynk.ai.llm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+class ResponseFieldsTest {
+
+	private final ObjectMapper objectMapper = JsonMapper.builder().build();
+
+	@Test
+	void extractsFieldAndSkipsTheRest() {
+		String body = """
+			{"id":"x","usage":{"n":[1,{"a":2}]},"choices":[{"index":0,"message":{"role":"assistant","content":"hello"}}]}
+			""";
+		assertEquals("hello", ResponseFields.require("groq", objectMapper, body.getBytes(), GroqApi.CONTENT));
+		assertEquals("hf", ResponseFields.require("huggingface", objectMapper,
+				"[{\"generated_text\":\"hf\"}]".getBytes(), HuggingFaceApi.GENERATED_TEXT));
+	}
+
+	@Test
+	void findReturnsNullForMissingField() {
+		assertNull(ResponseFields.find("groq", objectMapper,
+				"{\"choices\":[{\"delta\":{\"role\":\"assistant\"}}]}", GroqApi.DELTA_CONTENT));
+		assertNull(ResponseFields.find("gemini", objectMapper, "{\"candidates\":[]}", GeminiApi.TEXT));
+	}
+
+	@Test
+	void malformedResponsesBecomeFormatErrors() {
+		assertThrows(LlmResponseFormatException.class,
+				() -> ResponseFields.require("huggingface", objectMapper, "[]".getBytes(), HuggingFaceApi.GENERATED_TEXT));
+		assertThrows(LlmResponseFormatException.class,
+				() -> ResponseFields.require("groq", objectMapper, "{\"error\":\"x\"}".getBytes(), GroqApi.CONTENT));
+		assertThrows(LlmResponseFormatException.class,
+				() -> ResponseFields.require("groq", objectMapper, "{\"choices\":[{\"mess".getBytes(), GroqApi.CONTENT));
+	}
+
+}
@@ -0,0 +1,90 @@
+package com.keeplynk.ai.memory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class BkTreeTest {
+
+	@Test
+	void findsClosestTermLikeBruteForce() {
+		Random random = new Random(11);
+		BkTree tree = new BkTree();
+		List<String> terms = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			String term = randomWord(random);
+			if (tree.add(term)) {
+				terms.add(term);
+			}
+		}
+		assertEquals(terms.size(), tree.size());
+
+		for (int i = 0; i < 300; i++) {
+			String query = randomWord(random);
+			BkTree.Match expected = null;
+			for (String term : terms) {
+				int distance = levenshtein(query, term);
+				if (distance <= 2 && (expected == null || distance < expected.distance()
+						|| distance == expected.distance() && term.compareTo(expected.term()) < 0)) {
+					expected = new BkTree.Match(term, distance);
+				}
+			}
+			assertEquals(expected, tree.closest(query, 2), query);
+		}
+	}
+
+	@Test
+	void matchesTyposAndSeparatorVariants() {
+		BkTree tree = new BkTree();
+		tree.add("uiux");
+		tree.add("tutorial");
+		tree.add("javascript");
+
+		assertEquals("uiux", tree.closest(TagNormalizer.normalize("UI UX"), 1).term());
+		assertEquals("tutorial", tree.closest("tutorials", 1).term());
+		assertEquals("javascript", tree.closest("javascirpt", 2).term());
+		assertNull(tree.closest("java", 2));
+	}
+
+	@Test
+	void normalizesLikeTheRegexVersion() {
+		Random random = new Random(3);
+		String alphabet = "aZ09 -_/.+#\téK";
+		for (int i = 0; i < 5000; i++) {
+			StringBuilder tag = new StringBuilder();
+			for (int j = random.nextInt(12); j > 0; j--) {
+				tag.append(alphabet.charAt(random.nextInt(alphabet.length())));
+			}
+			String expected = tag.toString().toLowerCase()
+					.trim()
+					.replaceAll("[^a-z0-9 ]", "")
+					.replaceAll("\\s+", "-");
+			assertEquals(expected, TagNormalizer.normalize(tag.toString()), tag.toString());
+		}
+	}
+
+	private static int levenshtein(String a, String b) {
+		int[][] d = new int[a.length() + 1][b.length() + 1];
+		for (int i = 0; i <= a.length(); i++) {
+			for (int j = 0; j <= b.length(); j++) {
+				d[i][j] = i == 0 ? j : j == 0 ? i : Math.min(
+						d[i - 1][j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1),
+						Math.min(d[i - 1][j], d[i][j - 1]) + 1);
+			}
+		}
+		return d[a.length()][b.length()];
+	}
+
+	private static String randomWord(Random random) {
+		StringBuilder word = new StringBuilder();
+		for (int i = 4 + random.nextInt(6); i > 0; i--) {
+			word.append((char) ('a' + random.nextInt(8)));
+		}
+		return word.toString();
+	}
+}
@@ -0,0 +1,58 @@
+package com.keeplynk.ai.memory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class HnswIndexTest {
+
+	@Test
+	void findsNearestNeighbourLikeBruteForce() {
+		Random random = new Random(7);
+		HnswIndex index = new HnswIndex(16, 100);
+		List<float[]> vectors = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			String word = randomWord(random);
+			float[] vector = TagEmbedding.of(word);
+			if (index.add(word, vector)) {
+				vectors.add(vector);
+			}
+		}
+
+		int hits = 0;
+		int queries = 200;
+		for (int i = 0; i < queries; i++) {
+			float[] query = TagEmbedding.of(randomWord(random));
+			float best = (float) vectors.stream()
+					.mapToDouble(vector -> TagEmbedding.dot(query, vector))
+					.max()
+					.orElseThrow();
+			if (index.search(query, 1, 50).get(0).similarity() >= best - 1e-6f) {
+				hits++;
+			}
+		}
+		assertTrue(hits >= queries * 0.95, "recall " + hits + "/" + queries);
+	}
+
+	@Test
+	void spellingVariantsEmbedClose() {
+		assertEquals(1f, TagEmbedding.dot(TagEmbedding.of("java-script"), TagEmbedding.of("javascript")), 1e-5f);
+		assertTrue(TagEmbedding.dot(TagEmbedding.of("tutorials"), TagEmbedding.of("tutorial")) > 0.8f);
+		assertTrue(TagEmbedding.dot(TagEmbedding.of("java"), TagEmbedding.of("javascript")) < 0.8f);
+	}
+
+	private static String randomWord(Random random) {
+		StringBuilder word = new StringBuilder();
+		int length = 4 + random.nextInt(8);
+		for (int i = 0; i < length; i++) {
+			word.append((char) ('a' + random.nextInt(26)));
+		}
+		return word.toString();
+	}
+
+}
@@ -0,0 +1,43 @@
+package com.keeplynk.ai.memory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class NaiveBayesTest {
+
+	@Test
+	void learnsHostToLabel() {
+		NaiveBayes model = new NaiveBayes(1000);
+		for (int i = 0; i < 10; i++) {
+			model.learn(UrlFeatures.of("https://github.com/org/repo" + i, "developer"), "Development");
+			model.learn(UrlFeatures.of("https://www.youtube.com/watch?v=" + i, "developer"), "Learning");
+		}
+
+		List<NaiveBayes.Prediction> predictions =
+				model.predict(UrlFeatures.of("https://github.com/spring-projects/spring-boot", "developer"));
+		assertEquals("Development", predictions.get(0).label());
+		assertTrue(predictions.get(0).probability() > 0.9);
+		assertEquals(10, predictions.get(0).support());
+	}
+
+	@Test
+	void unknownFeaturesGiveNoPrediction() {
+		NaiveBayes model = new NaiveBayes(1000);
+		model.learn(UrlFeatures.of("https://github.com/a/b", null), "Development");
+
+		assertTrue(model.predict(UrlFeatures.of("https://example.org/x", null)).isEmpty());
+	}
+
+	@Test
+	void extractsHostSiteAndPathFeatures() {
+		assertEquals(List.of("host:docs.github.com", "site:github", "sub:docs", "p0:en", "w:en", "w:actions",
+				"persona:designer"),
+				UrlFeatures.of("https://docs.github.com/en/actions/12345", " Designer "));
+		assertTrue(UrlFeatures.of("https://www.bbc.co.uk/news", null).contains("site:bbc"));
+	}
+
+}
@@ -0,0 +1,45 @@
+package com.keeplynk.ai.memory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class TagIndexTest {
+
+	private TagIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new TagIndex(16, 100);
+		ReflectionTestUtils.setField(index, "enabled", true);
+		ReflectionTestUtils.setField(index, "minSimilarity", 0.8);
+		ReflectionTestUtils.setField(index, "minLength", 4);
+		ReflectionTestUtils.setField(index, "maxEdits", 2);
+		ReflectionTestUtils.setField(index, "typoMinLength", 8);
+		ReflectionTestUtils.setField(index, "efSearch", 50);
+		List.of("code", "books", "saas", "food", "uiux", "tutorial", "javascript", "class")
+				.forEach(index::add);
+	}
+
+	@Test
+	void keepsShortDistinctTagsApart() {
+		for (String term : List.of("node", "hooks", "sass", "mood", "cash")) {
+			Optional<String> similar = index.similar(term);
+			assertTrue(similar.isEmpty(), term + " -> " + similar.orElse(null));
+		}
+	}
+
+	@Test
+	void matchesPluralAndSeparatorVariants() {
+		assertEquals(Optional.of("uiux"), index.similar("ui-ux"));
+		assertEquals(Optional.of("tutorial"), index.similar("tutorials"));
+		assertEquals(Optional.of("class"), index.similar("classes"));
+		assertEquals(Optional.of("javascript"), index.similar("javascirpt"));
+	}
+}
@@ -0,0 +1,70 @@
+package com.keeplynk.ai.memory;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * The regex normalizer {@link TagNormalizer} used to be against the
+ * single-pass one, over tags as the LLM returns them and tags that are
+ * already normalized. Run {@link #main} (or JMH with {@code -prof gc}) to
+ * see time and allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TagNormalizerBenchmark {
+
+	@Param({ "raw", "normalized" })
+	public String input;
+
+	private String[] tags;
+
+	@Setup
+	public void setup() {
+		tags = "raw".equals(input)
+				? new String[] { " Spring Boot ", "UI/UX", "Machine Learning", "c++", "Node.js", "REST API", "java-script", "Tutorials" }
+				: new String[] { "springboot", "uiux", "machinelearning", "c", "nodejs", "restapi", "javascript", "tutorials" };
+	}
+
+	@Benchmark
+	public void regex(Blackhole blackhole) {
+		for (String tag : tags) {
+			blackhole.consume(tag.toLowerCase()
+					.trim()
+					.replaceAll("[^a-z0-9 ]", "")
+					.replaceAll("\\s+", "-"));
+		}
+	}
+
+	@Benchmark
+	public void singlePass(Blackhole blackhole) {
+		for (String tag : tags) {
+			blackhole.consume(TagNormalizer.normalize(tag));
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder()
+				.include(TagNormalizerBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build()).run();
+	}
+}
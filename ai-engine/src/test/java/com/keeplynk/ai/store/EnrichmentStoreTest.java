@@ -0,0 +1,109 @@
+package com.keeplynk.ai.store;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.keeplynk.ai.agent.EnrichmentKey;
+
+import tools.jackson.databind.json.JsonMapper;
+
+class EnrichmentStoreTest {
+
+	private static final EnrichmentKey FIRST = new EnrichmentKey("https://example.org/a", "developer", "*", "user-1");
+	private static final EnrichmentKey SECOND = new EnrichmentKey("https://example.org/b", "developer", "*", "");
+
+	@TempDir
+	Path dir;
+
+	private EnrichmentStore open(int capacityBytes, int promptVersion) {
+		EnrichmentStore store = new EnrichmentStore(JsonMapper.builder().build());
+		ReflectionTestUtils.setField(store, "enabled", true);
+		ReflectionTestUtils.setField(store, "path", dir.resolve("enrichment.store").toString());
+		ReflectionTestUtils.setField(store, "capacityBytes", capacityBytes);
+		ReflectionTestUtils.setField(store, "promptVersion", promptVersion);
+		ReflectionTestUtils.setField(store, "ttlDays", 30L);
+		store.open();
+		return store;
+	}
+
+	@Test
+	void returnsStoredResultWithoutPredictedKeys() {
+		EnrichmentStore store = open(4096, 1);
+		store.put(FIRST, Map.of("category", "Development", "tags", List.of("java")), Set.of("category"));
+
+		assertEquals(Optional.of(Map.of("category", "Development", "tags", List.of("java"))), store.get(FIRST));
+		assertTrue(store.get(SECOND).isEmpty());
+
+		Map<EnrichmentKey, Map<String, Object>> visited = new HashMap<>();
+		store.forEach(visited::put);
+		assertEquals(List.of("category"), visited.get(FIRST).get(EnrichmentStore.PREDICTED));
+	}
+
+	@Test
+	void keepsEntriesAcrossReopenForTheSamePromptVersion() {
+		EnrichmentStore store = open(4096, 1);
+		store.put(FIRST, Map.of("category", "Development"), Set.of());
+		store.close();
+
+		assertEquals(Optional.of(Map.of("category", "Development")), open(4096, 1).get(FIRST));
+		assertTrue(open(4096, 2).get(FIRST).isEmpty());
+	}
+
+	@Test
+	void truncatesAtATornRecord() throws IOException {
+		EnrichmentStore store = open(4096, 1);
+		store.put(FIRST, Map.of("category", "Development"), Set.of());
+		store.put(SECOND, Map.of("category", "Learning"), Set.of());
+		store.close();
+
+		// Key length of the second record points past its end, as if its body never reached disk
+		Path file = dir.resolve("enrichment.store");
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			ByteBuffer length = ByteBuffer.allocate(4);
+			channel.read(length, 12);
+			int second = 12 + length.flip().getInt();
+			channel.write(ByteBuffer.allocate(4).putInt(1 << 20).flip(), second + 16);
+		}
+
+		EnrichmentStore reopened = open(4096, 1);
+		assertEquals(1, reopened.size());
+		assertEquals(Optional.of(Map.of("category", "Development")), reopened.get(FIRST));
+		assertTrue(reopened.get(SECOND).isEmpty());
+
+		// Appends resume where the torn record started
+		reopened.put(SECOND, Map.of("category", "Learning"), Set.of());
+		reopened.close();
+		assertEquals(Optional.of(Map.of("category", "Learning")), open(4096, 1).get(SECOND));
+	}
+
+	@Test
+	void compactsOverwrittenEntriesWhenFull() {
+		EnrichmentStore store = open(1024, 1);
+		store.put(FIRST, Map.of("category", "Development"), Set.of());
+		for (int i = 0; i < 50; i++) {
+			store.put(SECOND, Map.of("description", "revision " + i), Set.of());
+		}
+
+		assertEquals(2, store.size());
+		assertEquals(Optional.of(Map.of("category", "Development")), store.get(FIRST));
+		assertEquals(Optional.of(Map.of("description", "revision 49")), store.get(SECOND));
+
+		store.close();
+		assertEquals(Optional.of(Map.of("description", "revision 49")), open(1024, 1).get(SECOND));
+	}
+}